@@ -0,0 +1,32 @@
+package searchengine.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Бенчмарки очищают базу данных, поэтому по умолчанию работают с отдельной схемой, а не с базой приложения.
+// Другая база задаётся явно аргументом --spring.datasource.url=...
+final class BenchmarkDatabase {
+
+    static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/search_engine_bench?createDatabaseIfNotExist=true"
+            + "&useSSL=false&requireSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+
+    private static final String URL_PROPERTY = "--spring.datasource.url=";
+
+    private BenchmarkDatabase() {
+    }
+
+    // Аргументы приложения с базой бенчмарков, если база не указана явно
+    static List<String> withDatasource(List<String> applicationArgs) {
+        List<String> args = new ArrayList<>(applicationArgs);
+        if (args.stream().noneMatch(arg -> arg.startsWith(URL_PROPERTY))) {
+            args.add(URL_PROPERTY + DEFAULT_URL);
+        }
+        String url = args.stream()
+                .filter(arg -> arg.startsWith(URL_PROPERTY))
+                .reduce((first, second) -> second)
+                .orElseThrow()
+                .substring(URL_PROPERTY.length());
+        System.out.printf("База данных бенчмарка: %s%n", url);
+        return args;
+    }
+}
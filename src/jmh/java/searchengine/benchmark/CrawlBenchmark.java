@@ -0,0 +1,126 @@
+package searchengine.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import searchengine.Application;
+import searchengine.services.indexing.page.LemmaFrequencyBuffers;
+import searchengine.services.indexing.progress.IndexingProgress;
+import searchengine.services.indexing.progress.IndexingProgressRegistry;
+import searchengine.services.indexing.site.IndexingSitesService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Замер обхода и индексации сайта, который отдаёт встроенный HTTP-сервер (FixtureSite), без обращения к реальным сайтам.
+// Для каждого типа хранилища поднимается приложение и выполняется полная индексация, которая очищает базу,
+// поэтому по умолчанию используется отдельная база search_engine_bench (см. BenchmarkDatabase).
+// Параметры задаются как имя=значение, аргументы вида --свойство=значение передаются приложению,
+// например --spring.datasource.url=...
+//   mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=searchengine.benchmark.CrawlBenchmark \
+//       -Dbenchmark.args="pages=5000 fan-out=10 latency=20 storages=memory,database"
+public class CrawlBenchmark {
+
+    private static final long POLL_MILLIS = 50;
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "pages", "2000",                 // число страниц сайта
+            "fan-out", "8",                  // число ссылок на странице, не меньше 2
+            "page-size", "8192",             // размер текста страницы в символах
+            "latency", "0",                  // задержка ответа сервера, мс
+            "error-rate", "0.02",            // доля страниц с ответом 500
+            "seed", "42",
+            "storages", "memory,database",   // типы хранилища indexing-settings.storage.type
+            "requests-per-second", "0",      // ограничение частоты запросов к хосту, 0 - без ограничения
+            "timeout", "1800"                // наибольшее время одного запуска, секунды
+    );
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (equals > 0 && DEFAULTS.containsKey(arg.substring(0, equals))) {
+                settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+            } else {
+                throw new IllegalArgumentException("Неизвестный параметр: " + arg + ", допустимые: " + DEFAULTS.keySet());
+            }
+        }
+
+        FixtureSite site = new FixtureSite(
+                Integer.parseInt(settings.get("pages")),
+                Integer.parseInt(settings.get("fan-out")),
+                Integer.parseInt(settings.get("page-size")),
+                Long.parseLong(settings.get("latency")),
+                Double.parseDouble(settings.get("error-rate")),
+                Long.parseLong(settings.get("seed")));
+        String url = site.start();
+        System.out.printf("Сайт %s: %s страниц, из них с ошибкой %d%n", url, settings.get("pages"), site.countErrors());
+
+        List<String> results = new ArrayList<>();
+        try {
+            for (String storage : settings.get("storages").split(",")) {
+                results.add(run(url, storage.trim(), settings, applicationArgs));
+            }
+        } finally {
+            site.stop();
+        }
+
+        System.out.printf("%n%-10s %9s %7s %9s %9s %9s %9s %10s %10s%n", "storage", "fetched", "failed",
+                "persisted", "indexed", "crawl, s", "total, s", "pages/s", "heap, MB");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(String url, String storage, Map<String, String> settings,
+                              List<String> applicationArgs) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--indexing-settings.sites[0].url=" + url,
+                "--indexing-settings.sites[0].name=Benchmark",
+                "--indexing-settings.storage.type=" + storage,
+                "--parser-settings.requests-per-second=" + settings.get("requests-per-second")));
+        args.addAll(BenchmarkDatabase.withDatasource(applicationArgs));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]))) {
+            IndexingSitesService indexingSitesService = context.getBean(IndexingSitesService.class);
+            IndexingProgressRegistry progressRegistry = context.getBean(IndexingProgressRegistry.class);
+            LemmaFrequencyBuffers lemmaFrequencyBuffers = context.getBean(LemmaFrequencyBuffers.class);
+
+            System.gc();
+            long peakHeap = usedHeap();
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("timeout")));
+            indexingSitesService.startIndexing();
+            IndexingProgress progress = progressRegistry.getAll().iterator().next();
+
+            // Индексация завершена, когда закончен обход и сброшены частоты лемм - это происходит после последней страницы
+            while (!progress.isFinished() || lemmaFrequencyBuffers.get(progress.getSite()) != null) {
+                if (System.nanoTime() > deadline) {
+                    indexingSitesService.stopIndexing();
+                    throw new IllegalStateException("Индексация с хранилищем " + storage + " не завершилась вовремя");
+                }
+                peakHeap = Math.max(peakHeap, usedHeap());
+                Thread.sleep(POLL_MILLIS);
+            }
+            double totalSeconds = (System.nanoTime() - start) / 1e9;
+            double crawlSeconds = (progress.getFinishedAt() - progress.getStartedAt()) / 1e3;
+
+            return String.format("%-10s %9d %7d %9d %9d %9.1f %9.1f %10.1f %10d", storage,
+                    progress.getFetched().sum(), progress.getFailed().sum(), progress.getPersisted().sum(),
+                    progress.getIndexed().sum(), crawlSeconds, totalSeconds, progress.getPagesPerSecond(),
+                    peakHeap / (1024 * 1024));
+        }
+    }
+
+    // Наибольший занятый объём кучи определяется по замерам во время индексации
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,142 @@
+package searchengine.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Сайт для замеров обхода на встроенном HTTP-сервере. Страница "/" - корень, остальные - "/page/{номер}".
+// Страница i ссылается на 2i+1 и 2i+2, поэтому все страницы достижимы, остальные ссылки ведут на случайные страницы.
+// Содержимое, ссылки и ошибки определяются номером страницы, так что сайт одинаков при каждом запуске
+public class FixtureSite {
+
+    private static final String[] WORDS = {
+            "город", "река", "набережная", "кремль", "улица", "музей", "площадь", "история", "прогулка", "башня",
+            "лестница", "собор", "ярмарка", "купец", "теплоход", "дорога", "парк", "театр", "мост", "вокзал",
+            "sofa", "frame", "cushion", "delivery", "leather", "velvet", "linen", "room", "door", "comfort"
+    };
+
+    private final int pages;
+    private final int fanOut;
+    private final int pageSize;
+    private final long latencyMillis;
+    private final double errorRate;
+    private final long seed;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FixtureSite(int pages, int fanOut, int pageSize, long latencyMillis, double errorRate, long seed) {
+        this.pages = pages;
+        this.fanOut = Math.max(fanOut, 2);
+        this.pageSize = pageSize;
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.seed = seed;
+    }
+
+    public String start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        // Задержка ответа не должна занимать поток, принимающий соединения
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fixture-site");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // Число страниц, которые вернут ошибку, - для сверки с результатами обхода
+    public int countErrors() {
+        int errors = 0;
+        for (int page = 0; page < pages; page++) {
+            if (isError(page)) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int page = getPage(exchange.getRequestURI().getPath());
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (page < 0) {
+                send(exchange, 404, "<html><body>Not found</body></html>");
+            } else if (isError(page)) {
+                send(exchange, 500, "<html><body>Internal error</body></html>");
+            } else {
+                send(exchange, 200, render(page));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(HttpExchange exchange, int code, String html) throws IOException {
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private int getPage(String path) {
+        if (path.equals("/")) {
+            return 0;
+        }
+        if (path.startsWith("/page/")) {
+            try {
+                int page = Integer.parseInt(path.substring("/page/".length()));
+                return page > 0 && page < pages ? page : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isError(int page) {
+        return page != 0 && new SplittableRandom(seed * 31 + page).nextDouble() < errorRate;
+    }
+
+    private String render(int page) {
+        SplittableRandom random = new SplittableRandom(seed ^ page);
+        StringBuilder html = new StringBuilder(pageSize + 256);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>Страница ")
+                .append(page).append("</title></head><body><nav>");
+        for (int i = 0; i < fanOut; i++) {
+            int target = i < 2 ? 2 * page + 1 + i : random.nextInt(pages);
+            if (target < pages) {
+                html.append("<a href=\"").append(path(target)).append("\">ссылка ").append(target).append("</a> ");
+            }
+        }
+        html.append("</nav><article><h1>Страница ").append(page).append("</h1><p>");
+        while (html.length() < pageSize) {
+            html.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        html.append("</p></article></body></html>");
+        return html.toString();
+    }
+
+    private String path(int page) {
+        return page == 0 ? "/" : "/page/" + page;
+    }
+}
@@ -0,0 +1,63 @@
+package searchengine.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// HTML-страницы для замеров. Средняя и большая страницы собираются из статьи малой,
+// повторённой до нужного размера, чтобы не хранить в репозитории файл на 2 МБ
+public final class Fixtures {
+
+    public static final int MEDIUM_SIZE = 64 * 1024;
+    public static final int LARGE_SIZE = 2 * 1024 * 1024;
+
+    private static final String ARTICLE_START = "<article>";
+    private static final String ARTICLE_END = "</article>";
+
+    private Fixtures() {
+    }
+
+    // Имя вида "ru-small", "en-medium", "ru-large"
+    public static String html(String name) {
+        int dash = name.indexOf('-');
+        String language = name.substring(0, dash);
+        String size = name.substring(dash + 1);
+        String small = load("fixtures/" + language + "-small.html");
+        switch (size) {
+            case "small":
+                return small;
+            case "medium":
+                return grow(small, MEDIUM_SIZE);
+            case "large":
+                return grow(small, LARGE_SIZE);
+            default:
+                throw new IllegalArgumentException("Неизвестный размер страницы: " + size);
+        }
+    }
+
+    private static String grow(String page, int size) {
+        int start = page.indexOf(ARTICLE_START);
+        int end = page.indexOf(ARTICLE_END) + ARTICLE_END.length();
+        String article = page.substring(start, end);
+
+        StringBuilder html = new StringBuilder(size + page.length());
+        html.append(page, 0, end);
+        while (html.length() < size) {
+            html.append('\n').append(article);
+        }
+        html.append(page, end, page.length());
+        return html.toString();
+    }
+
+    private static String load(String resource) {
+        try (InputStream stream = Fixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Не найдена страница " + resource);
+            }
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package searchengine.benchmark;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import searchengine.services.lemma.LemmaSearcher;
+import searchengine.services.lemma.TokenPositions;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Разбиение на слова, лемматизация и очистка HTML на страницах разного размера
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LemmaBenchmark {
+
+    @Param({"ru-small", "ru-medium", "ru-large", "en-small", "en-medium", "en-large"})
+    private String page;
+
+    private LemmaSearcher lemmaSearcher;
+    private String html;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        lemmaSearcher = new LemmaSearcher();
+        html = Fixtures.html(page);
+        text = Jsoup.parse(html).text();
+    }
+
+    @Benchmark
+    public List<String> getWords() {
+        return lemmaSearcher.getWords(text);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getLemmas() {
+        return lemmaSearcher.getLemmas(text);
+    }
+
+    @Benchmark
+    public Map<String, TokenPositions> getLemmaPositions() {
+        return lemmaSearcher.getLemmaPositions(text);
+    }
+
+    @Benchmark
+    public String htmlClear() {
+        return lemmaSearcher.htmlClear(html);
+    }
+}
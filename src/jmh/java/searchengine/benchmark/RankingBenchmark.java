@@ -0,0 +1,98 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import searchengine.services.searching.engine.PostingList;
+import searchengine.services.searching.engine.RankedPage;
+import searchengine.services.searching.engine.TopKQueue;
+import searchengine.services.searching.query.AndNode;
+import searchengine.services.searching.query.MaxScoreEvaluator;
+import searchengine.services.searching.query.OrNode;
+import searchengine.services.searching.query.QueryEvaluator;
+import searchengine.services.searching.query.QueryNode;
+import searchengine.services.searching.query.ScoredPages;
+import searchengine.services.searching.query.TermNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Подсчёт рангов по спискам вхождений в памяти: пересечение, объединение с полным подсчётом и отбор MaxScore.
+// Доля страниц со словом убывает по закону Ципфа: у первого слова она 30%, у i-го - 30% / i
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RankingBenchmark {
+
+    private static final double FIRST_TERM_SHARE = 0.3;
+    private static final int TOP_PAGES = 100;
+    private static final long SEED = 42;
+
+    @Param({"10000", "100000", "1000000"})
+    private int pages;
+
+    @Param({"2", "4"})
+    private int terms;
+
+    private Map<String, PostingList> postings;
+    private QueryNode andQuery;
+    private QueryNode orQuery;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        postings = new HashMap<>();
+        List<QueryNode> termNodes = new ArrayList<>();
+        for (int term = 1; term <= terms; term++) {
+            String lemma = "лемма" + term;
+            double share = FIRST_TERM_SHARE / term;
+            PostingList list = new PostingList((int) (pages * share) + 1);
+            for (int pageId = 1; pageId <= pages; pageId++) {
+                if (random.nextDouble() < share) {
+                    list.add(pageId, 1 + random.nextInt(20));
+                }
+            }
+            list.trim();
+            postings.put(lemma, list);
+            termNodes.add(new TermNode(lemma));
+        }
+        andQuery = new AndNode(termNodes);
+        orQuery = new OrNode(termNodes);
+    }
+
+    @Benchmark
+    public ScoredPages intersect() {
+        return new QueryEvaluator(postings, Set.of()).evaluate(andQuery);
+    }
+
+    @Benchmark
+    public List<RankedPage> unionExhaustive() {
+        ScoredPages scored = new QueryEvaluator(postings, Set.of()).evaluate(orQuery);
+        TopKQueue<RankedPage> topPages = new TopKQueue<>(TOP_PAGES, RankedPage.BY_RELEVANCE);
+        for (int i = 0; i < scored.size(); i++) {
+            topPages.offer(new RankedPage(scored.getPageId(i), 0, scored.getScore(i)));
+        }
+        return topPages.toSortedList();
+    }
+
+    @Benchmark
+    public ScoredPages unionMaxScore() {
+        return new MaxScoreEvaluator(postings, Set.of()).evaluate(orQuery, TOP_PAGES);
+    }
+}
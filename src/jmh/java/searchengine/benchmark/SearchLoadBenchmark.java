@@ -0,0 +1,270 @@
+package searchengine.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import searchengine.Application;
+import searchengine.config.context.SearchEngineContext;
+import searchengine.dto.searching.SearchCacheStatistics;
+import searchengine.dto.searching.SearchingQuery;
+import searchengine.entity.SiteEntity;
+import searchengine.exception.SearchingException;
+import searchengine.services.lemma.LemmaSearcher;
+import searchengine.services.searching.SearchingService;
+import searchengine.services.searching.cache.IndexGeneration;
+import searchengine.services.site.SiteService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Нагрузочный поиск: синтетический корпус (SyntheticCorpus) и набор запросов, отправляемых в SearchingService
+// с заданной частотой из нескольких потоков. Время запроса отсчитывается от момента, когда он должен был начаться,
+// поэтому очередь из-за медленных ответов входит в задержку. Корпус записывается в отдельную базу
+// search_engine_bench (см. BenchmarkDatabase). Параметры задаются как имя=значение,
+// аргументы вида --свойство=значение передаются приложению:
+//   mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=searchengine.benchmark.SearchLoadBenchmark \
+//       -Dbenchmark.args="pages=200000 qps=200 threads=32 --searching-settings.cache.policy=none"
+public class SearchLoadBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("generate", "true");         // создать корпус заново (данные в базе бенчмарка удаляются)
+        DEFAULTS.put("sites", "3");
+        DEFAULTS.put("pages", "100000");          // всего страниц на всех сайтах
+        DEFAULTS.put("words", "200");             // слов на странице
+        DEFAULTS.put("vocabulary", "50000");      // слов в словаре
+        DEFAULTS.put("exponent", "1.0");          // показатель закона Ципфа для слов страниц
+        DEFAULTS.put("query-exponent", "1.0");    // показатель закона Ципфа для слов запросов
+        DEFAULTS.put("mix", "single:40,multi:30,site:20,deep:10");    // доли видов запросов
+        DEFAULTS.put("limit", "20");
+        DEFAULTS.put("qps", "50");                // целевое число запросов в секунду
+        DEFAULTS.put("threads", "16");
+        DEFAULTS.put("warmup", "10");             // прогрев, секунды
+        DEFAULTS.put("duration", "60");           // замер, секунды
+        DEFAULTS.put("seed", "42");
+    }
+
+    private final Map<String, String> settings;
+    private final SearchingService searchingService;
+    private final List<String> vocabulary;
+    private final double[] queryWords;
+    private final List<SiteEntity> sites;
+    private final Map<String, Integer> mix;
+    private final int limit;
+
+    private SearchLoadBenchmark(Map<String, String> settings, SearchingService searchingService,
+                                List<String> vocabulary, List<SiteEntity> sites) {
+        this.settings = settings;
+        this.searchingService = searchingService;
+        this.vocabulary = vocabulary;
+        this.sites = sites;
+        this.queryWords = SyntheticCorpus.zipf(vocabulary.size(), Double.parseDouble(settings.get("query-exponent")));
+        this.mix = parseMix(settings.get("mix"));
+        this.limit = Integer.parseInt(settings.get("limit"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (equals > 0 && DEFAULTS.containsKey(arg.substring(0, equals))) {
+                settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+            } else {
+                throw new IllegalArgumentException("Неизвестный параметр: " + arg + ", допустимые: " + DEFAULTS.keySet());
+            }
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(BenchmarkDatabase.withDatasource(applicationArgs).toArray(new String[0]))) {
+            SyntheticCorpus corpus = new SyntheticCorpus(context.getBean(JdbcTemplate.class),
+                    context.getBean(LemmaSearcher.class), Long.parseLong(settings.get("seed")));
+            List<String> vocabulary;
+            if (Boolean.parseBoolean(settings.get("generate"))) {
+                long start = System.nanoTime();
+                vocabulary = corpus.generate(Integer.parseInt(settings.get("sites")),
+                        Integer.parseInt(settings.get("pages")), Integer.parseInt(settings.get("words")),
+                        Integer.parseInt(settings.get("vocabulary")), Double.parseDouble(settings.get("exponent")));
+                // Индекс в памяти строится при старте приложения, корпус записан уже после него
+                context.getBean(SearchEngineContext.class).getSearchEngine().load();
+                context.getBean(IndexGeneration.class).increment();
+                System.out.printf("Корпус создан за %.1f с%n", (System.nanoTime() - start) / 1e9);
+            } else {
+                vocabulary = corpus.loadVocabulary();
+            }
+            if (vocabulary.isEmpty()) {
+                throw new IllegalStateException("Словарь корпуса пуст");
+            }
+
+            SearchLoadBenchmark benchmark = new SearchLoadBenchmark(settings, context.getBean(SearchingService.class),
+                    vocabulary, context.getBean(SiteService.class).getAll());
+            benchmark.run(Integer.parseInt(settings.get("warmup")), null);
+            Map<String, Statistics> statistics = new LinkedHashMap<>();
+            benchmark.mix.keySet().forEach(type -> statistics.put(type, new Statistics()));
+            double elapsed = benchmark.run(Integer.parseInt(settings.get("duration")), statistics);
+            report(statistics, elapsed, context.getBean(SearchingService.class).getCacheStatistics());
+        }
+    }
+
+    // Отправляет запросы с заданной частотой в течение seconds секунд, возвращает фактическое время в секундах
+    private double run(int seconds, Map<String, Statistics> statistics) throws InterruptedException {
+        if (seconds <= 0) {
+            return 0;
+        }
+        int threads = Integer.parseInt(settings.get("threads"));
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / Double.parseDouble(settings.get("qps")));
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong tickets = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                while (true) {
+                    long intended = start + tickets.getAndIncrement() * interval;
+                    if (intended >= end) {
+                        return;
+                    }
+                    LockSupport.parkNanos(intended - System.nanoTime());
+                    String type = nextType();
+                    String outcome = execute(type);
+                    if (statistics != null) {
+                        statistics.get(type).record(System.nanoTime() - intended, outcome);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private String nextType() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int choice = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            choice -= entry.getValue();
+            if (choice < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private String execute(String type) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SearchingQuery.SearchingQueryBuilder query = SearchingQuery.builder().limit(limit).offset(0);
+        switch (type) {
+            case "single":
+                query.query(words(1));
+                break;
+            case "multi":
+                query.query(words(2 + random.nextInt(2)));
+                break;
+            case "site":
+                query.query(words(1 + random.nextInt(2))).site(sites.get(random.nextInt(sites.size())));
+                break;
+            case "deep":
+                query.query(words(1)).offset(limit * (5 + random.nextInt(46)));
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный вид запроса: " + type);
+        }
+        try {
+            searchingService.getResult(query.build());
+            return "ok";
+        } catch (SearchingException e) {
+            return "empty";
+        } catch (RuntimeException e) {
+            return "error";
+        }
+    }
+
+    private String words(int count) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int word = SyntheticCorpus.sample(queryWords, ThreadLocalRandom.current().nextDouble());
+            query.append(i > 0 ? " " : "").append(vocabulary.get(word));
+        }
+        return query.toString();
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] typeAndWeight = part.trim().split(":");
+            int weight = Integer.parseInt(typeAndWeight[1]);
+            if (weight > 0) {
+                mix.put(typeAndWeight[0], weight);
+            }
+        }
+        return mix;
+    }
+
+    private static void report(Map<String, Statistics> statistics, double elapsed, SearchCacheStatistics cache) {
+        Statistics total = new Statistics();
+        statistics.values().forEach(total::addAll);
+
+        System.out.printf("%n%-8s %8s %7s %7s %9s %9s %9s %9s %9s%n", "query", "count", "empty", "errors",
+                "qps", "p50, ms", "p95, ms", "p99, ms", "max, ms");
+        statistics.forEach((type, typeStatistics) -> typeStatistics.print(type, elapsed));
+        total.print("total", elapsed);
+        System.out.printf("%nКэш: %s, попаданий %d, промахов %d (%.1f%%)%n", cache.getPolicy(), cache.getHits(),
+                cache.getMisses(), cache.getHitRate() * 100);
+    }
+
+    private static class Statistics {
+
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder empty = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long nanos, String outcome) {
+            latencies.add(nanos);
+            if (outcome.equals("empty")) {
+                empty.increment();
+            } else if (outcome.equals("error")) {
+                errors.increment();
+            }
+        }
+
+        private void addAll(Statistics other) {
+            latencies.addAll(other.latencies);
+            empty.add(other.empty.sum());
+            errors.add(other.errors.sum());
+        }
+
+        private void print(String type, double elapsed) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-8s %8d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", type, sorted.length, empty.sum(),
+                    errors.sum(), elapsed > 0 ? sorted.length / elapsed : 0,
+                    percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double fraction) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
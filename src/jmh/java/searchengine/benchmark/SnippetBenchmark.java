@@ -0,0 +1,83 @@
+package searchengine.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import searchengine.services.lemma.LemmaSearcher;
+import searchengine.services.lemma.TokenPositions;
+import searchengine.services.snippet.SnippetServiceImpl;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Построение сниппетов для трёх лемм средней частоты, как для типичного запроса: с лемматизацией текста
+// и по смещениям слов, сохранённым при индексации
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnippetBenchmark {
+
+    private static final int LENGTH_SNIPPET = 60;
+    private static final int QUERY_LEMMAS = 3;
+
+    @Param({"ru-small", "ru-medium", "ru-large", "en-small", "en-medium", "en-large"})
+    private String page;
+
+    private SnippetServiceImpl snippetService;
+    private String text;
+    private List<String> lemmas;
+    private int[] offsets;
+
+    @Setup
+    public void setUp() throws Exception {
+        LemmaSearcher lemmaSearcher = new LemmaSearcher();
+        snippetService = new SnippetServiceImpl(lemmaSearcher, new SimpleMeterRegistry());
+        // Длина сниппета задаётся настройкой приложения
+        Field lengthSnippet = SnippetServiceImpl.class.getDeclaredField("lengthSnippet");
+        lengthSnippet.setAccessible(true);
+        lengthSnippet.setInt(snippetService, LENGTH_SNIPPET);
+
+        text = Jsoup.parse(Fixtures.html(page)).text();
+        List<String> byFrequency = lemmaSearcher.getLemmas(text).entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        int from = Math.max(byFrequency.size() / 2 - QUERY_LEMMAS / 2, 0);
+        lemmas = byFrequency.subList(from, Math.min(from + QUERY_LEMMAS, byFrequency.size()));
+
+        // Смещения слов, которые при индексации сохраняются в indices.offsets
+        Map<String, TokenPositions> positions = lemmaSearcher.getLemmaPositions(text);
+        offsets = lemmas.stream()
+                .flatMapToInt(lemma -> Arrays.stream(positions.get(lemma).offsetsToArray()))
+                .sorted()
+                .toArray();
+    }
+
+    @Benchmark
+    public List<String> getSnippets() {
+        return snippetService.getSnippets(text, lemmas);
+    }
+
+    @Benchmark
+    public List<String> getSnippetsByOffsets() {
+        return snippetService.getSnippets(text, offsets);
+    }
+}
@@ -0,0 +1,200 @@
+package searchengine.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import searchengine.services.lemma.LemmaSearcher;
+import searchengine.services.searching.engine.PositionCodec;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Синтетический корпус для нагрузочного поиска, записываемый прямо в таблицы sites/pages/lemmas/indices.
+// Слова страниц выбираются по закону Ципфа: слово с номером r встречается с вероятностью, пропорциональной 1 / r^s.
+// Словарь составляется из псевдослов, нормальная форма которых совпадает с ними самими,
+// поэтому запрос из слова словаря находит ту же лемму, что записана в индекс
+public class SyntheticCorpus {
+
+    private static final String[] SYLLABLES = {
+            "ка", "ро", "ми", "ло", "на", "ве", "ст", "ду", "по", "ри", "ко", "ла", "то", "же", "бы", "гу", "зо", "се",
+            "ни", "да", "мо", "ре", "шу", "та", "вь", "ль", "ск", "пр", "тр", "кл"
+    };
+    private static final String[] ENDINGS = {"", "а", "о", "ь", "ый", "ая", "ка", "ник", "ость", "ение"};
+    private static final int BATCH_PAGES = 500;
+    private static final int MAX_ATTEMPTS_PER_WORD = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LemmaSearcher lemmaSearcher;
+    private final SplittableRandom random;
+
+    public SyntheticCorpus(JdbcTemplate jdbcTemplate, LemmaSearcher lemmaSearcher, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lemmaSearcher = lemmaSearcher;
+        this.random = new SplittableRandom(seed);
+    }
+
+    // Слова по убыванию частоты, для запросов к уже созданному корпусу
+    public List<String> loadVocabulary() {
+        return jdbcTemplate.queryForList(
+                "SELECT lemma FROM lemmas GROUP BY lemma ORDER BY SUM(frequency) DESC", String.class);
+    }
+
+    // Удаляет все данные и создаёт корпус, возвращает словарь по убыванию частоты
+    public List<String> generate(int sites, int pages, int wordsPerPage, int vocabularySize, double exponent) {
+        List<String> vocabulary = buildVocabulary(vocabularySize);
+        double[] cumulative = zipf(vocabulary.size(), exponent);
+        System.out.printf("Словарь: %d слов, наиболее частые: %s%n", vocabulary.size(),
+                vocabulary.subList(0, Math.min(10, vocabulary.size())));
+
+        clear();
+        long postings = 0;
+        int pageId = 0;
+        for (int site = 0; site < sites; site++) {
+            long siteId = insertSite(site);
+            long firstLemmaId = (long) site * vocabulary.size() + 1;
+            insertLemmas(siteId, firstLemmaId, vocabulary);
+
+            int sitePages = pages / sites + (site < pages % sites ? 1 : 0);
+            int[] frequencies = new int[vocabulary.size()];
+            List<Object[]> pageRows = new ArrayList<>(BATCH_PAGES);
+            List<Object[]> indexRows = new ArrayList<>();
+            for (int page = 0; page < sitePages; page++) {
+                pageId++;
+                int[] tokens = new int[wordsPerPage];
+                for (int i = 0; i < tokens.length; i++) {
+                    tokens[i] = sample(cumulative, random.nextDouble());
+                }
+                int[] starts = new int[tokens.length];
+                pageRows.add(new Object[]{pageId, siteId, "/page/" + page, 200, "Страница " + page,
+                        toText(tokens, vocabulary, starts)});
+                for (Map.Entry<Integer, List<Integer>> entry : positions(tokens).entrySet()) {
+                    int[] tokenPositions = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                    int[] tokenOffsets = Arrays.stream(tokenPositions).map(position -> starts[position]).toArray();
+                    indexRows.add(new Object[]{pageId, firstLemmaId + entry.getKey(), (float) tokenPositions.length,
+                            PositionCodec.encode(tokenPositions), PositionCodec.encode(tokenOffsets)});
+                    frequencies[entry.getKey()]++;
+                }
+                if (pageRows.size() == BATCH_PAGES) {
+                    postings += flush(pageRows, indexRows);
+                }
+            }
+            postings += flush(pageRows, indexRows);
+            updateFrequencies(firstLemmaId, frequencies);
+            System.out.printf("Сайт %d: %d страниц, всего вхождений %d%n", site + 1, sitePages, postings);
+        }
+        jdbcTemplate.update("DELETE FROM lemmas WHERE frequency = 0");
+        return vocabulary;
+    }
+
+    // Номер слова для равномерно распределённого u из [0, 1)
+    public static int sample(double[] cumulative, double u) {
+        int index = Arrays.binarySearch(cumulative, u);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    // Накопленные вероятности закона Ципфа для n слов
+    public static double[] zipf(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private List<String> buildVocabulary(int size) {
+        Set<String> words = new LinkedHashSet<>();
+        int attempts = 0;
+        while (words.size() < size && attempts < size * MAX_ATTEMPTS_PER_WORD) {
+            attempts++;
+            String lemma = lemmaSearcher.getLemma(randomWord());
+            if (lemma != null && lemma.equals(lemmaSearcher.getLemma(lemma))) {
+                words.add(lemma);
+            }
+        }
+        if (words.size() < size) {
+            System.out.printf("Составлено только %d слов словаря из %d%n", words.size(), size);
+        }
+        return new ArrayList<>(words);
+    }
+
+    private String randomWord() {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.append(ENDINGS[random.nextInt(ENDINGS.length)]).toString();
+    }
+
+    private Map<Integer, List<Integer>> positions(int[] tokens) {
+        Map<Integer, List<Integer>> positions = new HashMap<>();
+        for (int position = 0; position < tokens.length; position++) {
+            positions.computeIfAbsent(tokens[position], word -> new ArrayList<>()).add(position);
+        }
+        return positions;
+    }
+
+    // В starts записываются смещения начала слов в тексте, как при индексации
+    private String toText(int[] tokens, List<String> vocabulary, int[] starts) {
+        StringBuilder text = new StringBuilder(tokens.length * 8);
+        for (int i = 0; i < tokens.length; i++) {
+            starts[i] = text.length();
+            text.append(vocabulary.get(tokens[i])).append(' ');
+        }
+        return text.toString();
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM indices");
+        jdbcTemplate.update("DELETE FROM lemmas");
+        jdbcTemplate.update("DELETE FROM pages");
+        jdbcTemplate.update("DELETE FROM sites");
+    }
+
+    private long insertSite(int site) {
+        String url = "http://synthetic-" + (site + 1) + ".local";
+        jdbcTemplate.update("INSERT INTO sites (status, status_time, url, name) VALUES ('INDEXED', ?, ?, ?)",
+                Timestamp.valueOf(LocalDateTime.now()), url, "Синтетический сайт " + (site + 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM sites WHERE url = ?", Long.class, url);
+    }
+
+    private void insertLemmas(long siteId, long firstLemmaId, List<String> vocabulary) {
+        List<Object[]> rows = new ArrayList<>(vocabulary.size());
+        for (int i = 0; i < vocabulary.size(); i++) {
+            rows.add(new Object[]{firstLemmaId + i, siteId, vocabulary.get(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO lemmas (id, site_id, lemma, frequency) VALUES (?, ?, ?, 0)", rows);
+    }
+
+    private int flush(List<Object[]> pageRows, List<Object[]> indexRows) {
+        jdbcTemplate.batchUpdate("INSERT INTO pages (id, site_id, path, code, title, text) VALUES (?, ?, ?, ?, ?, ?)",
+                pageRows);
+        jdbcTemplate.batchUpdate("INSERT INTO indices (page_id, lemma_id, number, positions, offsets) VALUES (?, ?, ?, ?, ?)",
+                indexRows);
+        int count = indexRows.size();
+        pageRows.clear();
+        indexRows.clear();
+        return count;
+    }
+
+    private void updateFrequencies(long firstLemmaId, int[] frequencies) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < frequencies.length; i++) {
+            if (frequencies[i] > 0) {
+                rows.add(new Object[]{frequencies[i], firstLemmaId + i});
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE lemmas SET frequency = ? WHERE id = ?", rows);
+    }
+}
@@ -1,5 +1,7 @@
 package searchengine.config.context;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
@@ -8,26 +10,26 @@ import searchengine.services.indexing.parser.ParserAction;
 
 @Component
 @Scope("prototype")
+@RequiredArgsConstructor
 public class ParserContext {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${parser-settings.user-agent}")
     private String userAgent;
 
     @Value("${parser-settings.referrer}")
     private String referrer;
 
-    @Value("${parser-settings.timeout}")
-    private boolean timeout;
-
     @Value("${parser-settings.print-error}")
     private boolean printError;
 
     public Parser getParser(String url) {
         return Parser.builder()
                 .url(url)
-                .timeout(timeout)
                 .userAgent(userAgent)
                 .referrer(referrer)
+                .meterRegistry(meterRegistry)
                 .build();
     }
 
@@ -0,0 +1,61 @@
+package searchengine.config.context;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.exception.SearchingException;
+import searchengine.services.searching.cache.SearchCache;
+import searchengine.services.searching.cache.SearchCacheLinked;
+import searchengine.services.searching.cache.SearchCacheNone;
+
+import javax.annotation.PostConstruct;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchCacheContext {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${searching-settings.cache.policy}")
+    private String policy;
+
+    @Value("${searching-settings.cache.max-size}")
+    private int maxSize;
+
+    @Value("${searching-settings.cache.ttl}")
+    private long ttl;
+
+    private SearchCache searchCache;
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    // Создать кэш результатов поиска с выбранной политикой вытеснения
+    @PostConstruct
+    private void initialize() {
+        log.info("Выбор политики кэша результатов поиска: {}", policy);
+        switch (policy) {
+            case "lru":
+                searchCache = new SearchCacheLinked(policy, true, maxSize, ttl * 1000);
+                break;
+            case "fifo":
+                searchCache = new SearchCacheLinked(policy, false, maxSize, ttl * 1000);
+                break;
+            case "none":
+                searchCache = new SearchCacheNone();
+                break;
+            default:
+                String errorMsg = "Не указана политика кэша результатов поиска.";
+                log.error("Ошибка выбора кэша: {}", errorMsg);
+                throw new SearchingException(errorMsg);
+        }
+        Gauge.builder("search.cache.size", this, context -> context.getSearchCache().getStatistics().getSize())
+                .description("Число запросов в кэше результатов поиска")
+                .register(meterRegistry);
+    }
+}
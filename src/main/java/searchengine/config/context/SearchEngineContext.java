@@ -0,0 +1,44 @@
+package searchengine.config.context;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import searchengine.exception.SearchingException;
+import searchengine.services.searching.engine.SearchEngine;
+import searchengine.services.searching.engine.SearchEngineInDataBase;
+import searchengine.services.searching.engine.SearchEngineInMemory;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchEngineContext {
+
+    private final SearchEngineInMemory searchEngineInMemory;
+    private final SearchEngineInDataBase searchEngineInDataBase;
+
+    @Value("${searching-settings.engine.type}")
+    private String engineType;
+
+    // Получить нужную реализацию поиска либо по индексу в памяти, либо по DataBase
+    public SearchEngine getSearchEngine() {
+        switch (engineType) {
+            case "memory":
+                return searchEngineInMemory;
+            case "database":
+                return searchEngineInDataBase;
+            default:
+                String errorMsg = "Не указан тип поискового движка.";
+                log.error("Ошибка выбора поискового движка: {}", errorMsg);
+                throw new SearchingException(errorMsg);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchEngine() {
+        log.info("Выбор типа поискового движка: {}", engineType);
+        getSearchEngine().load();
+    }
+}
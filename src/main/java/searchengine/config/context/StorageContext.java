@@ -9,6 +9,8 @@ import searchengine.exception.IndexingException;
 import searchengine.services.indexing.storage.Storage;
 import searchengine.services.indexing.storage.StorageInDataBase;
 import searchengine.services.indexing.storage.StorageInMemory;
+import searchengine.services.indexing.storage.StorageWriteBehind;
+import searchengine.services.indexing.storage.UrlSeenSet;
 import searchengine.services.page.PageService;
 import searchengine.services.site.SiteService;
 
@@ -23,19 +25,38 @@ public class StorageContext {
     @Value("${indexing-settings.storage.type}")
     private String storageType;
 
-    // Получить нужную реализацию работы либо через Hash, либо через DataBase
+    @Value("${indexing-settings.storage.expected-pages}")
+    private int expectedPages;
+
+    @Value("${indexing-settings.storage.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${indexing-settings.storage.writers}")
+    private int writers;
+
+    @Value("${indexing-settings.storage.batch-size}")
+    private int batchSize;
+
+    // Получить нужную реализацию работы через Hash, через DataBase или через очередь записи
     public Storage<PageEntity> getStorage() {
         log.info("Выбор типа хранилища: {}", storageType);
         switch (storageType) {
             case "memory":
-                return new StorageInMemory(pageService, siteService);
+                return new StorageInMemory(pageService, siteService, getUrlSeenSet());
+            case "stream":
+                return new StorageWriteBehind(pageService, siteService, getUrlSeenSet(),
+                        queueCapacity, writers, batchSize);
             case "database":
                 log.debug("Выбран тип хранилища 'database'. Создание StorageInDataBase.");
-                return new StorageInDataBase(pageService, siteService);
+                return new StorageInDataBase(pageService, siteService, getUrlSeenSet());
             default:
                 String errorMsg = "Не указан тип storage.";
                 log.error("Ошибка выбора хранилища: {}", errorMsg);
                 throw new IndexingException(errorMsg);
         }
     }
+
+    private UrlSeenSet getUrlSeenSet() {
+        return new UrlSeenSet(expectedPages);
+    }
 }
@@ -3,12 +3,15 @@ package searchengine.controllers;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import searchengine.dto.indexing.IndexingProgressResponse;
 import searchengine.dto.message.ErrorMessage;
 import searchengine.dto.message.Message;
-import searchengine.dto.searching.SearchingData;
+import searchengine.dto.searching.SearchCacheStatistics;
 import searchengine.dto.searching.SearchingResult;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.searching.SearchingQuery;
@@ -18,11 +21,10 @@ import searchengine.exception.SearchingException;
 import searchengine.services.searching.SearchingService;
 import searchengine.services.page.PageService;
 import searchengine.services.statistics.StatisticsService;
+import searchengine.services.indexing.progress.IndexingProgressService;
 import searchengine.services.indexing.site.IndexingSitesService;
 import searchengine.services.site.SiteService;
 
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/api")
@@ -34,6 +36,7 @@ public class ApiController {
     private final SearchingService searchingService;
     private final PageService pageService;
     private final SiteService siteService;
+    private final IndexingProgressService indexingProgressService;
 
     @GetMapping("/statistics")
     public ResponseEntity<StatisticsResponse> statistics() {
@@ -59,6 +62,17 @@ public class ApiController {
         return ResponseEntity.ok(new Message(true));
     }
 
+    @GetMapping("/indexing/progress")
+    public ResponseEntity<IndexingProgressResponse> indexingProgress() {
+        return ResponseEntity.ok(indexingProgressService.getProgress());
+    }
+
+    @GetMapping(value = "/indexing/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter indexingProgressStream() {
+        log.info("Запрос на подписку на ход индексации");
+        return indexingProgressService.subscribe();
+    }
+
     @PostMapping("/indexPage")
     public ResponseEntity<Message> indexPage(@RequestParam String url) {
         log.info("Запрос на индексацию страницы: {}", url);
@@ -89,19 +103,16 @@ public class ApiController {
                 .limit(limit)
                 .build();
 
-        List<SearchingData> searchingDataList = searchingService.getResult(searchingQuery);
+        SearchingResult searchingResult = searchingService.getResult(searchingQuery);
 
-        SearchingResult searchingResult = SearchingResult.builder()
-                .result(true)
-                .count(searchingDataList.size())
-                .data(searchingDataList.stream()
-                        .skip(offset)
-                        .limit(limit)
-                        .toList())
-                .build();
-
-        log.info("Поиск завершен успешно. Найдено результатов: {}", searchingDataList.size());
+        log.info("Поиск завершен успешно. Найдено результатов: {}", searchingResult.getCount());
         return ResponseEntity.ok(searchingResult);
     }
 
+    @GetMapping("/search/cache")
+    public ResponseEntity<SearchCacheStatistics> searchCache() {
+        log.info("Запрос на получение статистики кэша поиска");
+        return ResponseEntity.ok(searchingService.getCacheStatistics());
+    }
+
 }
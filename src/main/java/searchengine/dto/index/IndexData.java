@@ -0,0 +1,14 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class IndexData {
+
+    private Long lemmaId;
+    private float rank;
+    private byte[] positions;
+    private byte[] offsets;
+}
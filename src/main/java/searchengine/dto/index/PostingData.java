@@ -0,0 +1,18 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PostingData {
+
+    private Long lemmaId;
+    private Long pageId;
+    private Float rank;
+    private byte[] positions;
+
+    public PostingData(Long lemmaId, Long pageId, Float rank) {
+        this(lemmaId, pageId, rank, null);
+    }
+}
@@ -0,0 +1,14 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Смещения слов леммы в тексте страницы, сохранённые при индексации
+@Data
+@AllArgsConstructor
+public class TokenOffsets {
+
+    private Long pageId;
+    private String lemma;
+    private byte[] offsets;
+}
@@ -0,0 +1,28 @@
+package searchengine.dto.indexing;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class IndexingProgressItem {
+
+    private String url;
+    private String name;
+    private boolean finished;
+    private long startTime;
+    private long lastFetchTime;
+    private long discovered;
+    private long fetched;
+    private long failed;
+    private long persisted;
+    private long indexed;
+    private long unchanged;
+    private long duplicates;
+    private double pagesPerSecond;
+    private long fetchP50;
+    private long fetchP90;
+    private long fetchP99;
+    private int pendingTasks;
+    private int queuedTasks;
+}
@@ -0,0 +1,16 @@
+package searchengine.dto.indexing;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class IndexingProgressResponse {
+
+    private boolean result;
+    private long time;
+    private int queuedTasks;
+    private List<IndexingProgressItem> sites;
+}
@@ -0,0 +1,18 @@
+package searchengine.dto.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Сохранённая версия страницы: по ней повторный обход решает, нужно ли заново индексировать страницу
+@Data
+@AllArgsConstructor
+public class PageVersion {
+
+    private Long id;
+    private String path;
+    private String etag;
+    private String lastModified;
+    private String contentHash;
+    private Long simhash;
+    private String canonicalPath;
+}
@@ -0,0 +1,23 @@
+package searchengine.dto.searching;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SearchCacheStatistics {
+
+    private String policy;
+    private int size;
+    private int maxSize;
+    private long ttl;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,12 @@
+package searchengine.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SiteCount {
+
+    private Long siteId;
+    private Long count;
+}
@@ -31,6 +31,14 @@ public class IndexEntity {
     @Column(name = "number", columnDefinition = "FLOAT", nullable = false)
     private Float rank;
 
+    // Порядковые номера слов страницы, в которых встретилась лемма, см. PositionCodec
+    @Column(name = "positions", columnDefinition = "MEDIUMBLOB")
+    private byte[] positions;
+
+    // Смещения начала слов леммы в тексте страницы (pages.text) для сниппетов, в том же формате, что и позиции
+    @Column(name = "offsets", columnDefinition = "MEDIUMBLOB")
+    private byte[] offsets;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -33,6 +33,30 @@ public class PageEntity {
     @Column(name = "content", columnDefinition = "MEDIUMTEXT")
     private String content;
 
+    @Column(name = "title", columnDefinition = "TEXT")
+    private String title;
+
+    @Column(name = "text", columnDefinition = "MEDIUMTEXT")
+    private String text;
+
+    // Заголовки ответа для условного запроса при повторном обходе
+    @Column(name = "etag", columnDefinition = "VARCHAR(255)")
+    private String etag;
+
+    @Column(name = "last_modified", columnDefinition = "VARCHAR(64)")
+    private String lastModified;
+
+    @Column(name = "content_hash", columnDefinition = "CHAR(64)")
+    private String contentHash;
+
+    // Отпечаток SimHash текста для поиска почти одинаковых страниц
+    @Column(name = "simhash")
+    private Long simhash;
+
+    // Путь страницы того же сайта, копией которой является эта страница; копии не индексируются
+    @Column(name = "canonical_path", columnDefinition = "VARCHAR(255)")
+    private String canonicalPath;
+
     @OneToMany(mappedBy = "page")
     private List<IndexEntity> indices = new ArrayList<>();
 
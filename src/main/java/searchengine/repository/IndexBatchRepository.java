@@ -0,0 +1,138 @@
+package searchengine.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.index.IndexData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Пакетная запись лемм и индексов страницы напрямую через JDBC, минуя Hibernate
+@Repository
+@RequiredArgsConstructor
+public class IndexBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Леммы сортируются, чтобы параллельные потоки блокировали строки в одном порядке
+    @Transactional
+    public Map<String, Long> upsertLemmas(Long siteId, Collection<String> lemmas) {
+        List<String> sortedLemmas = lemmas.stream().distinct().sorted().toList();
+        for (List<String> chunk : partition(sortedLemmas)) {
+            String sql = "INSERT INTO lemmas (site_id, lemma, frequency) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, 1)"))
+                    + " ON DUPLICATE KEY UPDATE frequency = frequency + 1";
+            jdbcTemplate.update(sql, lemmaArgs(siteId, chunk));
+        }
+        return findLemmaIds(siteId, sortedLemmas);
+    }
+
+    // Создаёт отсутствующие леммы с нулевой частотой, частоты существующих не меняются
+    public Map<String, Long> insertMissingLemmas(Long siteId, Collection<String> lemmas) {
+        List<String> sortedLemmas = lemmas.stream().distinct().sorted().toList();
+        for (List<String> chunk : partition(sortedLemmas)) {
+            String sql = "INSERT INTO lemmas (site_id, lemma, frequency) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, 0)"))
+                    + " ON DUPLICATE KEY UPDATE id = id";
+            jdbcTemplate.update(sql, lemmaArgs(siteId, chunk));
+        }
+        return findLemmaIds(siteId, sortedLemmas);
+    }
+
+    @Transactional
+    public void addFrequencies(Long siteId, Map<String, Long> frequencies) {
+        List<Map.Entry<String, Long>> sortedFrequencies = new ArrayList<>(new TreeMap<>(frequencies).entrySet());
+        for (List<Map.Entry<String, Long>> chunk : partition(sortedFrequencies)) {
+            String sql = "INSERT INTO lemmas (site_id, lemma, frequency) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)"))
+                    + " ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)";
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            chunk.forEach(entry -> {
+                args.add(siteId);
+                args.add(entry.getKey());
+                args.add(entry.getValue());
+            });
+            jdbcTemplate.update(sql, args.toArray());
+        }
+    }
+
+    public Map<String, Long> findLemmaIds(Long siteId, Collection<String> lemmas) {
+        Map<String, Long> lemmaIds = new HashMap<>();
+        for (List<String> chunk : partition(new ArrayList<>(lemmas))) {
+            String sql = "SELECT id, lemma FROM lemmas WHERE site_id = ? AND lemma IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(siteId);
+            args.addAll(chunk);
+            jdbcTemplate.query(sql, rs -> {
+                lemmaIds.put(rs.getString("lemma"), rs.getLong("id"));
+            }, args.toArray());
+        }
+        return lemmaIds;
+    }
+
+    // Пакет записывается целиком или не записывается совсем, чтобы его можно было повторить
+    @Transactional
+    public void insertIndices(Long pageId, List<IndexData> indices) {
+        List<Object[]> rows = new ArrayList<>(indices.size());
+        indices.forEach(index -> rows.add(new Object[]{pageId, index.getLemmaId(), index.getRank(),
+                index.getPositions(), index.getOffsets()}));
+        jdbcTemplate.batchUpdate("INSERT INTO indices (page_id, lemma_id, number, positions, offsets) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    // Уменьшает частоты лемм страницы, удаляет её индексы и, если deleteUnusedLemmas, леммы, которые больше нигде
+    // не встречаются. Пока открыт буфер частот сайта, леммы не удаляются: буфер хранит их идентификаторы
+    @Transactional
+    public void deleteByPage(Long pageId, boolean deleteUnusedLemmas) {
+        List<Long> lemmaIds = jdbcTemplate.queryForList(
+                "SELECT lemma_id FROM indices WHERE page_id = ?", Long.class, pageId);
+        if (lemmaIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE lemmas l JOIN indices i ON i.lemma_id = l.id " +
+                "SET l.frequency = l.frequency - 1 WHERE i.page_id = ?", pageId);
+        jdbcTemplate.update("DELETE FROM indices WHERE page_id = ?", pageId);
+        if (!deleteUnusedLemmas) {
+            return;
+        }
+        for (List<Long> chunk : partition(lemmaIds)) {
+            String sql = "DELETE FROM lemmas WHERE frequency <= 0 AND id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")"
+                    + " AND NOT EXISTS (SELECT 1 FROM indices i WHERE i.lemma_id = lemmas.id)";
+            jdbcTemplate.update(sql, chunk.toArray());
+        }
+    }
+
+    // Леммы сайта, которые остались без частоты и индексов после закрытия буфера частот
+    public void deleteUnusedLemmas(Long siteId) {
+        jdbcTemplate.update("DELETE FROM lemmas WHERE site_id = ? AND frequency <= 0"
+                + " AND NOT EXISTS (SELECT 1 FROM indices i WHERE i.lemma_id = lemmas.id)", siteId);
+    }
+
+    private Object[] lemmaArgs(Long siteId, List<String> lemmas) {
+        List<Object> args = new ArrayList<>(lemmas.size() * 2);
+        lemmas.forEach(lemma -> {
+            args.add(siteId);
+            args.add(lemma);
+        });
+        return args.toArray();
+    }
+
+    private <T> List<List<T>> partition(List<T> list) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += BATCH_SIZE) {
+            chunks.add(list.subList(i, Math.min(i + BATCH_SIZE, list.size())));
+        }
+        return chunks;
+    }
+}
@@ -1,10 +1,19 @@
 package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import searchengine.dto.index.PostingData;
+import searchengine.dto.index.TokenOffsets;
 import searchengine.entity.IndexEntity;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface IndexRepository extends JpaRepository<IndexEntity, Long> {
@@ -12,4 +21,23 @@ public interface IndexRepository extends JpaRepository<IndexEntity, Long> {
     Optional<IndexEntity> findByPageIdAndLemmaId(Long page_id, Long lemma_id);
 
     boolean existsByPageIdAndLemmaId(Long page_id, Long lemma_id);
+
+    @Query("SELECT new searchengine.dto.index.PostingData(i.lemma.id, i.page.id, i.rank) " +
+            "FROM IndexEntity i WHERE i.lemma.id IN :lemmaIds ORDER BY i.page.id")
+    List<PostingData> findPostingsByLemmaIds(@Param("lemmaIds") Collection<Long> lemmaIds);
+
+    @Query("SELECT new searchengine.dto.index.PostingData(i.lemma.id, i.page.id, i.rank, i.positions) " +
+            "FROM IndexEntity i WHERE i.lemma.id IN :lemmaIds ORDER BY i.page.id")
+    List<PostingData> findPostingsWithPositionsByLemmaIds(@Param("lemmaIds") Collection<Long> lemmaIds);
+
+    @Query("SELECT new searchengine.dto.index.TokenOffsets(i.page.id, i.lemma.lemma, i.offsets) " +
+            "FROM IndexEntity i WHERE i.page.id IN :pageIds AND i.lemma.lemma IN :lemmas")
+    List<TokenOffsets> findOffsets(@Param("pageIds") Collection<Long> pageIds,
+                                   @Param("lemmas") Collection<String> lemmas);
+
+    // Integer.MIN_VALUE включает построчную выдачу результата драйвером MySQL
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new searchengine.dto.index.PostingData(i.lemma.id, i.page.id, i.rank) " +
+            "FROM IndexEntity i ORDER BY i.page.id")
+    Stream<PostingData> streamAllPostings();
 }
@@ -1,7 +1,9 @@
 package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import searchengine.dto.statistics.SiteCount;
 import searchengine.entity.LemmaEntity;
 
 import java.util.List;
@@ -16,4 +18,7 @@ public interface LemmaRepository extends JpaRepository<LemmaEntity,Long> {
 
     Optional<LemmaEntity> findBySiteIdAndLemma(Long id, String lemma);
 
+    @Query("SELECT new searchengine.dto.statistics.SiteCount(l.site.id, COUNT(l)) FROM LemmaEntity l GROUP BY l.site.id")
+    List<SiteCount> countLemmasBySite();
+
 }
@@ -1,7 +1,13 @@
 package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.indexing.PageVersion;
+import searchengine.dto.statistics.SiteCount;
 import searchengine.entity.PageEntity;
 
 import java.util.List;
@@ -16,4 +22,32 @@ public interface PageRepository extends JpaRepository<PageEntity, Long> {
 
     boolean existsBySiteIdAndPath(Long id, String path);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE PageEntity p SET p.title = :title, p.text = :text WHERE p.id = :id")
+    void updateTitleAndText(@Param("id") Long id, @Param("title") String title, @Param("text") String text);
+
+    @Query("SELECT new searchengine.dto.statistics.SiteCount(p.site.id, COUNT(p)) FROM PageEntity p GROUP BY p.site.id")
+    List<SiteCount> countPagesBySite();
+
+    // Число страниц сайта, попадающих в индекс (успешный код ответа, не копия другой страницы)
+    @Query("SELECT new searchengine.dto.statistics.SiteCount(p.site.id, COUNT(p)) " +
+            "FROM PageEntity p WHERE p.code < 400 AND p.canonicalPath IS NULL GROUP BY p.site.id")
+    List<SiteCount> countIndexedPagesBySite();
+
+    @Query("SELECT new searchengine.dto.indexing.PageVersion(p.id, p.path, p.etag, p.lastModified, p.contentHash, " +
+            "p.simhash, p.canonicalPath) " +
+            "FROM PageEntity p WHERE p.site.id = :siteId")
+    List<PageVersion> findVersionsBySiteId(@Param("siteId") Long siteId);
+
+    @Query("SELECT new searchengine.dto.indexing.PageVersion(p.id, p.path, p.etag, p.lastModified, p.contentHash, " +
+            "p.simhash, p.canonicalPath) " +
+            "FROM PageEntity p WHERE p.site.id = :siteId AND p.canonicalPath IS NOT NULL")
+    List<PageVersion> findDuplicateVersionsBySiteId(@Param("siteId") Long siteId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PageEntity p SET p.canonicalPath = :canonicalPath WHERE p.id = :id")
+    void updateCanonicalPath(@Param("id") Long id, @Param("canonicalPath") String canonicalPath);
+
 }
@@ -1,10 +1,15 @@
 package searchengine.services.index;
 
+import searchengine.dto.index.IndexData;
+import searchengine.dto.index.TokenOffsets;
 import searchengine.entity.IndexEntity;
 import searchengine.entity.LemmaEntity;
 import searchengine.entity.PageEntity;
 import searchengine.services.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface IndexService extends Service<IndexEntity> {
 
     IndexEntity getByPageAndLemma(PageEntity page, LemmaEntity lemma);
@@ -12,4 +17,8 @@ public interface IndexService extends Service<IndexEntity> {
     void saveByPageAndLemmaAndFrequency(PageEntity page, LemmaEntity lemma, Float frequency);
 
     boolean existsByPageAndLemma(PageEntity page, LemmaEntity lemma);
+
+    void saveAll(PageEntity page, List<IndexData> indices);
+
+    List<TokenOffsets> getOffsets(Collection<Long> pageIds, Collection<String> lemmas);
 }
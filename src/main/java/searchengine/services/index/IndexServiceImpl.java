@@ -1,17 +1,26 @@
 package searchengine.services.index;
 
 import org.springframework.stereotype.Service;
+import searchengine.dto.index.IndexData;
+import searchengine.dto.index.TokenOffsets;
 import searchengine.entity.IndexEntity;
 import searchengine.entity.LemmaEntity;
 import searchengine.entity.PageEntity;
+import searchengine.repository.IndexBatchRepository;
 import searchengine.repository.IndexRepository;
 import searchengine.services.AbstractService;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 public class IndexServiceImpl extends AbstractService<IndexEntity, IndexRepository> implements IndexService {
 
-    public IndexServiceImpl(IndexRepository repository) {
+    private final IndexBatchRepository indexBatchRepository;
+
+    public IndexServiceImpl(IndexRepository repository, IndexBatchRepository indexBatchRepository) {
         super(repository);
+        this.indexBatchRepository = indexBatchRepository;
     }
 
     @Override
@@ -38,4 +47,19 @@ public class IndexServiceImpl extends AbstractService<IndexEntity, IndexReposito
     public boolean existsByPageAndLemma(PageEntity page, LemmaEntity lemma) {
         return repository.existsByPageIdAndLemmaId(page.getId(), lemma.getId());
     }
+
+    @Override
+    public void saveAll(PageEntity page, List<IndexData> indices) {
+        if (!indices.isEmpty()) {
+            indexBatchRepository.insertIndices(page.getId(), indices);
+        }
+    }
+
+    @Override
+    public List<TokenOffsets> getOffsets(Collection<Long> pageIds, Collection<String> lemmas) {
+        if (pageIds.isEmpty() || lemmas.isEmpty()) {
+            return List.of();
+        }
+        return repository.findOffsets(pageIds, lemmas);
+    }
 }
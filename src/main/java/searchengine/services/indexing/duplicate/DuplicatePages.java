@@ -0,0 +1,148 @@
+package searchengine.services.indexing.duplicate;
+
+import searchengine.dto.indexing.PageVersion;
+import searchengine.services.lemma.WordTokenizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Канонические страницы сайта для поиска копий: точное совпадение по хешу содержимого и почти точное по SimHash.
+// Отпечаток делится на maxDistance + 1 полос: если отпечатки различаются не более чем в maxDistance битах,
+// хотя бы одна полоса у них совпадает целиком, поэтому сравниваются только страницы из общих корзин полос.
+// Набор заполняется каноническими страницами предыдущего обхода, после полной очистки базы он пуст
+public class DuplicatePages {
+
+    private final boolean enabled;
+    private final int maxDistance;
+    private final int minWords;
+    private final int[] bandShifts;
+    private final long[] bandMasks;
+
+    private final Map<String, Fingerprint> byPath = new HashMap<>();
+    private final Map<String, String> byHash = new HashMap<>();
+    private final List<Map<Long, List<Fingerprint>>> bands = new ArrayList<>();
+
+    public DuplicatePages(boolean enabled, int maxDistance, int minWords, List<PageVersion> versions) {
+        this.enabled = enabled;
+        this.maxDistance = Math.max(maxDistance, 0);
+        this.minWords = minWords;
+
+        int count = this.maxDistance + 1;
+        bandShifts = new int[count];
+        bandMasks = new long[count];
+        for (int band = 0; band < count; band++) {
+            int from = band * Long.SIZE / count;
+            int width = (band + 1) * Long.SIZE / count - from;
+            bandShifts[band] = from;
+            bandMasks[band] = width == Long.SIZE ? -1L : (1L << width) - 1;
+            bands.add(new HashMap<>());
+        }
+
+        for (PageVersion version : versions) {
+            if (version.getCanonicalPath() == null && version.getContentHash() != null) {
+                add(new Fingerprint(version.getPath(), version.getContentHash(), version.getSimhash()));
+            }
+        }
+    }
+
+    // Отпечаток текста страницы, null - слов слишком мало для сравнения по SimHash
+    public Long fingerprint(String text) {
+        List<String> words = new ArrayList<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> words.add(word));
+        return words.size() < minWords ? null : SimHash.of(words);
+    }
+
+    // Путь канонической страницы, которую повторяет данная; если такой нет, страница сама становится
+    // канонической и возвращается null. Прежний отпечаток страницы заменяется новым
+    public synchronized String findCanonical(String path, String contentHash, Long simhash) {
+        if (!enabled || contentHash == null) {
+            return null;
+        }
+        remove(path);
+
+        String canonical = byHash.get(contentHash);
+        if (canonical == null && simhash != null) {
+            canonical = findNearest(simhash);
+        }
+        if (canonical == null) {
+            add(new Fingerprint(path, contentHash, simhash));
+        }
+        return canonical;
+    }
+
+    // Страница больше не может быть канонической: удалена с сайта или заменена записью об ошибке
+    public synchronized void forget(String path) {
+        remove(path);
+    }
+
+    // Копия по-прежнему повторяет свою каноническую страницу в её текущей версии
+    public synchronized boolean isDuplicateOf(String canonicalPath, String contentHash, Long simhash) {
+        Fingerprint canonical = byPath.get(canonicalPath);
+        if (canonical == null) {
+            return false;
+        }
+        return canonical.contentHash().equals(contentHash) || canonical.simhash() != null && simhash != null
+                && SimHash.distance(canonical.simhash(), simhash) <= maxDistance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private String findNearest(long simhash) {
+        Fingerprint nearest = null;
+        int nearestDistance = maxDistance + 1;
+        for (int band = 0; band < bands.size(); band++) {
+            List<Fingerprint> bucket = bands.get(band).get(bandKey(band, simhash));
+            if (bucket == null) {
+                continue;
+            }
+            for (Fingerprint candidate : bucket) {
+                int distance = SimHash.distance(simhash, candidate.simhash());
+                if (distance < nearestDistance) {
+                    nearest = candidate;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest == null ? null : nearest.path();
+    }
+
+    private void add(Fingerprint fingerprint) {
+        byPath.put(fingerprint.path(), fingerprint);
+        byHash.putIfAbsent(fingerprint.contentHash(), fingerprint.path());
+        if (fingerprint.simhash() != null) {
+            for (int band = 0; band < bands.size(); band++) {
+                bands.get(band).computeIfAbsent(bandKey(band, fingerprint.simhash()), key -> new ArrayList<>(1))
+                        .add(fingerprint);
+            }
+        }
+    }
+
+    private void remove(String path) {
+        Fingerprint fingerprint = byPath.remove(path);
+        if (fingerprint == null) {
+            return;
+        }
+        byHash.remove(fingerprint.contentHash(), path);
+        if (fingerprint.simhash() != null) {
+            for (int band = 0; band < bands.size(); band++) {
+                Long key = bandKey(band, fingerprint.simhash());
+                List<Fingerprint> bucket = bands.get(band).get(key);
+                bucket.remove(fingerprint);
+                if (bucket.isEmpty()) {
+                    bands.get(band).remove(key);
+                }
+            }
+        }
+    }
+
+    private long bandKey(int band, long simhash) {
+        return simhash >>> bandShifts[band] & bandMasks[band];
+    }
+
+    private record Fingerprint(String path, String contentHash, Long simhash) {
+    }
+}
@@ -0,0 +1,57 @@
+package searchengine.services.indexing.duplicate;
+
+import java.util.List;
+
+// 64-битный отпечаток SimHash по шинглам из трёх слов подряд: у почти одинаковых текстов
+// отпечатки различаются в немногих битах, число различающихся бит - расстояние Хэмминга
+public final class SimHash {
+
+    public static final int SHINGLE_SIZE = 3;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    public static long of(List<String> words) {
+        int[] weights = new int[Long.SIZE];
+        int shingles = Math.max(words.size() - SHINGLE_SIZE + 1, 1);
+        for (int i = 0; i < shingles; i++) {
+            long hash = hash(words, i, Math.min(i + SHINGLE_SIZE, words.size()));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    // FNV-1a по символам шингла с последующим перемешиванием бит, чтобы каждый бит был равновероятен
+    private static long hash(List<String> words, int from, int to) {
+        long hash = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            String word = words.get(i);
+            for (int j = 0; j < word.length(); j++) {
+                hash = (hash ^ word.charAt(j)) * FNV_PRIME;
+            }
+            hash = (hash ^ ' ') * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
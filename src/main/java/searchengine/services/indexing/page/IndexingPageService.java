@@ -1,17 +1,34 @@
 package searchengine.services.indexing.page;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import searchengine.entity.LemmaEntity;
+import searchengine.config.context.SearchEngineContext;
+import searchengine.dto.index.IndexData;
 import searchengine.entity.PageEntity;
 import searchengine.exception.IndexException;
+import searchengine.repository.PageRepository;
 import searchengine.services.index.IndexService;
+import searchengine.services.indexing.progress.IndexingProgress;
+import searchengine.services.indexing.progress.IndexingProgressRegistry;
 import searchengine.services.lemma.LemmaSearcher;
 import searchengine.services.lemma.LemmaService;
+import searchengine.services.lemma.TokenPositions;
+import searchengine.services.searching.cache.IndexGeneration;
+import searchengine.services.searching.engine.PositionCodec;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -21,23 +38,40 @@ public class IndexingPageService {
     private final IndexService indexService;
     private final LemmaService lemmaService;
     private final LemmaSearcher lemmaSearcher;
+    private final SearchEngineContext searchEngineContext;
+    private final PageRepository pageRepository;
+    private final LemmaFrequencyBuffers lemmaFrequencyBuffers;
+    private final IndexGeneration indexGeneration;
+    private final IndexingProgressRegistry progressRegistry;
+    private final MeterRegistry meterRegistry;
 
     public void index(PageEntity page) throws IndexException {
-        if (page.getContent() != null && page.getCode() < 400) {
+        if (page.getCanonicalPath() != null) {
+            removeDuplicateIndex(page);
+        } else if (page.getContent() != null && page.getCode() < 400) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
             try {
                 deleteLemmas(page);
                 updateLemmas(page);
+                outcome = "success";
             } catch (Exception e) {
                 log.error("Ошибка при индексации страницы с ID {}: {}", page.getId(), e.getMessage(), e);
                 throw new IndexException("Ошибка при индексации страницы");
+            } finally {
+                sample.stop(meterRegistry.timer("indexing.page", "outcome", outcome));
             }
         } else {
+            // Запись об ошибке могла заменить проиндексированную страницу при повторном обходе
+            deleteLemmas(page);
             log.warn("Страница с ID {} имеет недопустимый контент или код ответа: {}", page.getId(), page.getCode());
         }
     }
 
     public void indexAsync(PageEntity page) throws IndexException {
-        if (page.getContent() != null && page.getCode() < 400) {
+        if (page.getCanonicalPath() != null) {
+            removeDuplicateIndex(page);
+        } else if (page.getContent() != null && page.getCode() < 400) {
             try {
                 startUpdateLemmas(page);
             } catch (Exception e) {
@@ -59,23 +93,84 @@ public class IndexingPageService {
     }
 
     private void updateLemmas(PageEntity page) {
-        String cleanedText = lemmaSearcher.htmlClear(page.getContent());
-        Map<String, Integer> lemmas = lemmaSearcher.getLemmas(cleanedText);
-        lemmas.forEach((lemma, frequency) -> {
-                    try {
-                        LemmaEntity lemmaEntity = lemmaService.updateByPageAndLemma(page, lemma);
-                        indexService.saveByPageAndLemmaAndFrequency(page, lemmaEntity, (float) frequency);
-                        log.info("Обновлена лемма '{}' для страница ID {}. Частота леммы: {}", lemma, page.getId(), frequency);
-                    } catch (Exception e) {
-                        log.error("Ошибка при обновлении леммы '{}' для страницы ID {}: {}", lemma, page.getId(), e.getMessage());
-                    }
+        String cleanedText = extractTitleAndText(page);
+        Map<String, TokenPositions> lemmas = meterRegistry.timer("indexing.lemmatize")
+                .record(() -> lemmaSearcher.getLemmaPositions(cleanedText));
+        List<IndexData> indices = getIndices(page, lemmas, getLemmaIds(page, lemmas.keySet()));
+        try {
+            indexService.saveAll(page, indices);
+        } catch (DataIntegrityViolationException e) {
+            LemmaFrequencyBuffer buffer = lemmaFrequencyBuffers.get(page.getSite());
+            if (buffer == null) {
+                throw e;
+            }
+            // Лемма могла быть удалена вместе с прежней версией страницы, пока её идентификатор хранился в буфере
+            log.warn("Повторное получение идентификаторов лемм страницы ID {}: {}", page.getId(), e.getMessage());
+            indices = getIndices(page, lemmas, buffer.resolve(lemmas.keySet()));
+            indexService.saveAll(page, indices);
+        }
+        searchEngineContext.getSearchEngine().addPage(page.getId(), indices);
+        indexGeneration.increment();
+        IndexingProgress progress = progressRegistry.get(page.getSite());
+        if (progress != null) {
+            progress.pageIndexed();
+        }
+        log.debug("Страница успешно проиндексирована: {}. Количество лемм: {}", page.getId(), indices.size());
+    }
+
+    private List<IndexData> getIndices(PageEntity page, Map<String, TokenPositions> lemmas, Map<String, Long> lemmaIds) {
+        List<IndexData> indices = new ArrayList<>(lemmas.size());
+        lemmas.forEach((lemma, positions) -> {
+            Long lemmaId = lemmaIds.get(lemma);
+            if (lemmaId != null) {
+                indices.add(new IndexData(lemmaId, positions.size(), PositionCodec.encode(positions.toArray()),
+                        PositionCodec.encode(positions.offsetsToArray())));
+            } else {
+                log.warn("Не найден идентификатор леммы '{}' для страницы ID {}", lemma, page.getId());
+            }
+        });
+        return indices;
+    }
+
+    // Во время полной индексации сайта частоты копятся в буфере, иначе сразу обновляются в базе
+    private Map<String, Long> getLemmaIds(PageEntity page, Set<String> lemmas) {
+        LemmaFrequencyBuffer buffer = lemmaFrequencyBuffers.get(page.getSite());
+        Map<String, Long> lemmaIds = buffer == null ? null : buffer.addPage(lemmas);
+        return lemmaIds != null ? lemmaIds : lemmaService.incrementFrequencies(page.getSite(), lemmas);
+    }
+
+    // HTML разбирается один раз при индексации, поиск использует только сохранённые заголовок и текст
+    private String extractTitleAndText(PageEntity page) {
+        Document document = Jsoup.parse(page.getContent());
+        page.setTitle(getTitle(document));
+        page.setText(document.text());
+        pageRepository.updateTitleAndText(page.getId(), page.getTitle(), page.getText());
+        return page.getText();
+    }
+
+    private String getTitle(Document document) {
+        return Optional.of(document.title())
+                .filter(title -> !title.isEmpty())
+                .orElseGet(() -> Optional.ofNullable(document.selectFirst("h1"))
+                        .map(Element::text)
+                        .orElse(""));
+    }
 
-                }
-        );
-        log.info("Страница успешно проиндексирована: {}", page.getId());
+    // Копия не индексируется, а прежний индекс страницы, ставшей копией при повторном обходе, удаляется
+    private void removeDuplicateIndex(PageEntity page) {
+        deleteLemmas(page);
+        log.debug("Страница с ID {} повторяет страницу {} и не индексируется", page.getId(), page.getCanonicalPath());
+    }
+
+    public void removePage(PageEntity page) {
+        deleteLemmas(page);
+        pageRepository.deleteById(page.getId());
     }
 
+    // Пока открыт буфер частот сайта, леммы без страниц удаляются только при его закрытии
     private void deleteLemmas(PageEntity page) {
-        lemmaService.deleteByPage(page);
+        lemmaService.deleteByPage(page, lemmaFrequencyBuffers.get(page.getSite()) == null);
+        searchEngineContext.getSearchEngine().removePage(page.getId());
+        indexGeneration.increment();
     }
 }
@@ -0,0 +1,133 @@
+package searchengine.services.indexing.page;
+
+import lombok.extern.slf4j.Slf4j;
+import searchengine.repository.IndexBatchRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Накопитель частот лемм сайта на время полной индексации.
+// Частоты копятся в памяти и сбрасываются в таблицу lemmas пакетно, а не обновляются построчно для каждой страницы.
+@Slf4j
+public class LemmaFrequencyBuffer {
+
+    private final Long siteId;
+    private final IndexBatchRepository indexBatchRepository;
+    private final int flushPages;
+
+    private final Map<String, Long> lemmaIds = new ConcurrentHashMap<>();
+    private final AtomicInteger pages = new AtomicInteger();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+
+    private volatile Map<String, LongAdder> frequencies = new ConcurrentHashMap<>();
+    // Снимок, который сейчас записывается в таблицу lemmas
+    private volatile Map<String, LongAdder> flushing = Map.of();
+    private volatile boolean closed;
+
+    public LemmaFrequencyBuffer(Long siteId, IndexBatchRepository indexBatchRepository, int flushPages) {
+        this.siteId = siteId;
+        this.indexBatchRepository = indexBatchRepository;
+        this.flushPages = Math.max(flushPages, 1);
+    }
+
+    // Возвращает идентификаторы лемм страницы или null, если буфер уже закрыт
+    public Map<String, Long> addPage(Collection<String> lemmas) {
+        if (closed) {
+            return null;
+        }
+        Map<String, Long> pageLemmaIds = getLemmaIds(lemmas);
+
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            Map<String, LongAdder> current = frequencies;
+            lemmas.forEach(lemma -> current.computeIfAbsent(lemma, key -> new LongAdder()).increment());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pages.incrementAndGet() % flushPages == 0) {
+            flush();
+        }
+        return pageLemmaIds;
+    }
+
+    public void flush() {
+        Map<String, LongAdder> snapshot;
+        lock.writeLock().lock();
+        try {
+            snapshot = frequencies;
+            flushing = snapshot;
+            frequencies = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<String, Long> increments = snapshot.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+        if (increments.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            indexBatchRepository.addFrequencies(siteId, increments);
+            flushing = Map.of();
+        }
+        log.debug("Сброшены частоты {} лемм сайта ID {}", increments.size(), siteId);
+    }
+
+    // Число страниц с леммой, ещё не добавленное к частоте в таблице lemmas. Значение приблизительное:
+    // на время записи снимка его частоты могут не учитываться или учитываться дважды
+    public long getPendingFrequency(String lemma) {
+        LongAdder current = frequencies.get(lemma);
+        LongAdder writing = flushing.get(lemma);
+        return (current == null ? 0 : current.sum()) + (writing == null ? 0 : writing.sum());
+    }
+
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flush();
+        lemmaIds.clear();
+        indexBatchRepository.deleteUnusedLemmas(siteId);
+        log.info("Буфер частот лемм сайта ID {} закрыт, обработано страниц: {}", siteId, pages.get());
+    }
+
+    // Заново находит или создаёт леммы, если сохранённые идентификаторы оказались недействительны
+    public Map<String, Long> resolve(Collection<String> lemmas) {
+        lemmas.forEach(lemmaIds::remove);
+        return getLemmaIds(lemmas);
+    }
+
+    private Map<String, Long> getLemmaIds(Collection<String> lemmas) {
+        List<String> missing = lemmas.stream()
+                .filter(lemma -> !lemmaIds.containsKey(lemma))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            lemmaIds.putAll(indexBatchRepository.insertMissingLemmas(siteId, missing));
+        }
+
+        Map<String, Long> result = new HashMap<>();
+        lemmas.forEach(lemma -> {
+            Long id = lemmaIds.get(lemma);
+            if (id != null) {
+                result.put(lemma, id);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package searchengine.services.indexing.page;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.entity.SiteEntity;
+import searchengine.repository.IndexBatchRepository;
+import searchengine.services.searching.cache.IndexGeneration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class LemmaFrequencyBuffers {
+
+    private final IndexBatchRepository indexBatchRepository;
+    private final IndexGeneration indexGeneration;
+    private final Map<Long, LemmaFrequencyBuffer> buffers = new ConcurrentHashMap<>();
+
+    @Value("${indexing-settings.lemma-flush-pages}")
+    private int flushPages;
+
+    public void open(SiteEntity site) {
+        LemmaFrequencyBuffer previous = buffers.put(site.getId(),
+                new LemmaFrequencyBuffer(site.getId(), indexBatchRepository, flushPages));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public LemmaFrequencyBuffer get(SiteEntity site) {
+        return get(site.getId());
+    }
+
+    public LemmaFrequencyBuffer get(Long siteId) {
+        return siteId == null ? null : buffers.get(siteId);
+    }
+
+    public void close(SiteEntity site) {
+        LemmaFrequencyBuffer buffer = buffers.remove(site.getId());
+        if (buffer != null) {
+            buffer.close();
+            // Последний сброс меняет частоты лемм уже после индексации всех страниц
+            indexGeneration.increment();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package searchengine.services.indexing.parser;
+
+import lombok.Getter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Обход одного сайта: считает незавершённые задачи и завершается, когда их не осталось
+public class CrawlJob {
+
+    private final CrawlScheduler scheduler;
+    @Getter
+    private final String host;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean cancelled;
+
+    CrawlJob(CrawlScheduler scheduler, String host) {
+        this.scheduler = scheduler;
+        this.host = host;
+    }
+
+    public void submit(Runnable task) {
+        if (cancelled) {
+            return;
+        }
+        pending.incrementAndGet();
+        scheduler.submit(this, task);
+    }
+
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    // Обход, остановленный до первой задачи, тоже должен завершиться
+    public void cancel() {
+        cancelled = true;
+        int removed = scheduler.cancel(this);
+        for (int i = 0; i < removed; i++) {
+            taskFinished();
+        }
+        if (pending.get() == 0) {
+            finish();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    void taskFinished() {
+        if (pending.decrementAndGet() == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        done.countDown();
+        scheduler.release(this);
+    }
+}
@@ -0,0 +1,220 @@
+package searchengine.services.indexing.parser;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.entity.SiteEntity;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Планировщик обхода: очередь страниц для каждого хоста с ограничением частоты запросов
+// и общий пул потоков ввода-вывода, ограничивающий число одновременных загрузок.
+// Задача передаётся в пул, только когда в нём есть свободный поток, поэтому интервал между запросами
+// к хосту отсчитывается от фактического начала загрузки, а не от постановки в очередь пула
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CrawlScheduler {
+
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+    // Хосты, у которых подошла очередь запроса, но все потоки загрузки заняты
+    private final Queue<HostQueue> waiting = new ConcurrentLinkedQueue<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${parser-settings.requests-per-second}")
+    private double requestsPerSecond;
+
+    @Value("${parser-settings.max-concurrency}")
+    private int maxConcurrency;
+
+    private long intervalNanos;
+    private Semaphore slots;
+    private ExecutorService ioExecutor;
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void initialize() {
+        intervalNanos = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+        slots = new Semaphore(Math.max(maxConcurrency, 1));
+        ioExecutor = Executors.newFixedThreadPool(Math.max(maxConcurrency, 1), threadFactory("crawler-io-"));
+        timer = Executors.newSingleThreadScheduledExecutor(threadFactory("crawler-timer-"));
+        ExecutorServiceMetrics.monitor(meterRegistry, ioExecutor, "crawler-io");
+        Gauge.builder("crawler.queue.size", this, CrawlScheduler::getQueuedTasks)
+                .description("Задачи обхода, ожидающие очереди к хосту")
+                .register(meterRegistry);
+        log.info("Планировщик обхода: {} запросов/с на хост, не более {} одновременных загрузок.",
+                requestsPerSecond, maxConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    public CrawlJob createJob(SiteEntity site) {
+        return new CrawlJob(this, getHost(site.getUrl()));
+    }
+
+    public int getQueuedTasks() {
+        return hosts.values().stream().mapToInt(HostQueue::size).sum();
+    }
+
+    // Задачи обхода, ожидающие своей очереди к хосту (без уже выполняющихся загрузок)
+    public int getQueuedTasks(CrawlJob job) {
+        HostQueue queue = hosts.get(job.getHost());
+        return queue == null ? 0 : queue.size();
+    }
+
+    void submit(CrawlJob job, Runnable task) {
+        HostQueue queue = hosts.computeIfAbsent(job.getHost(), HostQueue::new);
+        synchronized (queue) {
+            queue.tasks.add(new CrawlTask(job, task));
+            if (!queue.dispatchScheduled) {
+                queue.dispatchScheduled = true;
+                scheduleDispatch(queue);
+            }
+        }
+    }
+
+    // Удаляет из очереди хоста ещё не запущенные задачи остановленного обхода
+    int cancel(CrawlJob job) {
+        HostQueue queue = hosts.get(job.getHost());
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            int before = queue.tasks.size();
+            queue.tasks.removeIf(task -> task.job == job);
+            return before - queue.tasks.size();
+        }
+    }
+
+    // Очередь хоста больше не нужна, когда обход сайта завершён или остановлен
+    void release(CrawlJob job) {
+        hosts.computeIfPresent(job.getHost(), (host, queue) -> {
+            synchronized (queue) {
+                return queue.tasks.isEmpty() && !queue.dispatchScheduled ? null : queue;
+            }
+        });
+    }
+
+    private void scheduleDispatch(HostQueue queue) {
+        long delay = Math.max(0, queue.nextSlot - System.nanoTime());
+        timer.schedule(() -> dispatch(queue), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void dispatch(HostQueue queue) {
+        synchronized (queue) {
+            if (queue.tasks.isEmpty()) {
+                queue.dispatchScheduled = false;
+                return;
+            }
+            if (!slots.tryAcquire()) {
+                // Хост ждёт освобождения потока загрузки, очередь запроса сохраняется за ним
+                waiting.add(queue);
+                wakeWaiting();
+                return;
+            }
+            CrawlTask task = queue.tasks.poll();
+            queue.nextSlot = System.nanoTime() + intervalNanos;
+            ioExecutor.execute(task);
+
+            if (queue.tasks.isEmpty()) {
+                queue.dispatchScheduled = false;
+            } else {
+                scheduleDispatch(queue);
+            }
+        }
+    }
+
+    private void taskCompleted() {
+        slots.release();
+        wakeWaiting();
+    }
+
+    private void wakeWaiting() {
+        HostQueue queue;
+        while (slots.availablePermits() > 0 && (queue = waiting.poll()) != null) {
+            HostQueue next = queue;
+            timer.execute(() -> dispatch(next));
+        }
+    }
+
+    private String getHost(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            log.warn("Некорректный URL сайта: {}", url);
+            return url;
+        }
+    }
+
+    private ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class HostQueue {
+
+        private final String host;
+        private final Deque<CrawlTask> tasks = new ArrayDeque<>();
+        private long nextSlot = System.nanoTime();
+        private boolean dispatchScheduled;
+
+        private HostQueue(String host) {
+            this.host = host;
+        }
+
+        private synchronized int size() {
+            return tasks.size();
+        }
+    }
+
+    private class CrawlTask implements Runnable {
+
+        private final CrawlJob job;
+        private final Runnable task;
+
+        private CrawlTask(CrawlJob job, Runnable task) {
+            this.job = job;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!job.isCancelled()) {
+                    task.run();
+                }
+            } finally {
+                taskCompleted();
+                job.taskFinished();
+            }
+        }
+    }
+}
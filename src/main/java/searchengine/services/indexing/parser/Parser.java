@@ -2,6 +2,8 @@ package searchengine.services.indexing.parser;
 
 import lombok.Builder;
 import lombok.Data;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Connection;
 import org.jsoup.HttpStatusException;
@@ -13,6 +15,7 @@ import searchengine.exception.ParserException;
 
 import java.io.IOException;
 import java.net.ConnectException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,32 +24,48 @@ import java.util.List;
 @Builder
 public class Parser {
 
+    private static final int NOT_MODIFIED = 304;
+
     private String url;
     private int code;
     private String content;
     private Document document;
+    private String contentHash;
+    // До загрузки - сохранённые значения для условного запроса, после - значения из ответа
+    private String etag;
+    private String lastModified;
 
     private String userAgent;
     private String referrer;
-    private boolean timeout;
+    private MeterRegistry meterRegistry;
 
     public void parse() throws ParserException {
-        log.info("Начало парсинга URL: {}", url);
+        log.debug("Начало парсинга URL: {}", url);
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            if (timeout) {
-                Thread.sleep((long) (Math.random() * 2000));
-            }
-
-            Connection.Response response = Jsoup.connect(url)
+            Connection connection = Jsoup.connect(url)
                     .userAgent(userAgent)
-                    .referrer(referrer)
-                    .execute();
+                    .referrer(referrer);
+            if (etag != null) {
+                connection.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.header("If-Modified-Since", lastModified);
+            }
+            Connection.Response response = connection.execute();
+            code = response.statusCode();
+            if (isNotModified()) {
+                log.debug("Страница не изменилась: {}", url);
+                return;
+            }
 
             document = response.parse();
-            code = response.statusCode();
             content = document.toString();
+            contentHash = ContentHash.of(content);
+            etag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
 
-            log.info("Успешно выполнен парсинг URL: {}, код ответа: {}", url, code);
+            log.debug("Успешно выполнен парсинг URL: {}, код ответа: {}", url, code);
         } catch (HttpStatusException e) {
             code = e.getStatusCode();
             log.error("Ошибка HTTP при попытке загрузить страницу '{}', код ошибки: {}", url, code);
@@ -60,25 +79,49 @@ public class Parser {
         } catch (IOException e) {
             log.error("Ошибка ввода-вывода при попытке загрузить страницу '{}'", url, e);
             throw new ParserException(String.format("Страница '%s' не может быть загружена.", url));
-        } catch (InterruptedException e) {
-            log.error("Ошибка при прерывании выполнения потока для URL '{}'", url, e);
-            Thread.currentThread().interrupt();
-            throw new ParserException("Ошибка выполнения: " + e.getMessage());
         } catch (Exception e) {
             log.error("Непредвиденная ошибка страница '{}'. Ошибка: '{}'", url, e.getMessage(), e);
             throw new ParserException("Непредвиденная ошибка: " + e.getMessage());
+        } finally {
+            recordMetrics(sample);
+        }
+    }
+
+    // Код 0 - ответ не получен (ошибка соединения, неподдерживаемый тип ответа)
+    private void recordMetrics(Timer.Sample sample) {
+        String status = String.valueOf(code);
+        sample.stop(meterRegistry.timer("crawler.fetch", "status", status));
+        meterRegistry.counter("crawler.responses", "site", getHost(), "status", status).increment();
+    }
+
+    private String getHost() {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "unknown" : host;
+        } catch (IllegalArgumentException e) {
+            return "unknown";
         }
     }
 
+    public boolean isNotModified() {
+        return code == NOT_MODIFIED;
+    }
+
+    // Ссылки неизменившейся страницы берутся из сохранённого содержимого
+    public void parseStored(String storedContent) {
+        content = storedContent;
+        document = Jsoup.parse(storedContent, url);
+    }
+
     public List<String> getLinks() {
-        log.info("Извлечение ссылок из документа для URL: {}", url);
+        log.debug("Извлечение ссылок из документа для URL: {}", url);
         List<String> linksList = new ArrayList<>();
         if (document != null) {
             Elements links = document.select("a[href]");
             links.stream()
                     .map(link -> link.absUrl("href"))
                     .forEach(linksList::add);
-            log.info("Найдено {} ссылок в документе для URL: {}", linksList.size(), url);
+            log.debug("Найдено {} ссылок в документе для URL: {}", linksList.size(), url);
         } else {
             log.warn("Документ отсутствует для URL: {}", url);
         }
@@ -3,62 +3,152 @@ package searchengine.services.indexing.parser;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import searchengine.config.context.ParserContext;
 import searchengine.entity.PageEntity;
+import searchengine.dto.indexing.PageVersion;
 import searchengine.exception.ParserException;
+import searchengine.services.indexing.duplicate.DuplicatePages;
+import searchengine.services.indexing.progress.IndexingProgress;
+import searchengine.services.indexing.recrawl.KnownPages;
 import searchengine.services.indexing.storage.Storage;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ForkJoinTask;
-import java.util.concurrent.RecursiveAction;
+import java.util.Objects;
 
+// Загрузка одной страницы: найденные ссылки передаются планировщику обхода, а не обрабатываются рекурсивно
 @Slf4j
 @Data
 @RequiredArgsConstructor
-public class ParserAction extends RecursiveAction {
+public class ParserAction implements Runnable {
 
     private final ParserContext parserContext;
 
+    private CrawlJob crawlJob;
     private Storage<PageEntity> storage;
+    private IndexingProgress progress;
+    private KnownPages knownPages;
+    private DuplicatePages duplicatePages;
     private PageEntity page;
     private boolean printError;
 
     @Override
-    protected void compute() {
+    public void run() {
         String url = page.getSite().getUrl() + page.getPath();
         Parser parser = parserContext.getParser(url);
 
-        // Не уверен в правильности решения
-        if (Thread.currentThread().isInterrupted()) {
+        if (crawlJob.isCancelled()) {
             return;
         }
 
+        // Страница из предыдущего обхода запрашивается условно и сохраняется поверх прежней записи.
+        // Копия другой страницы загружается целиком, чтобы сравнить её с каноническими страницами заново
+        PageVersion known = knownPages.get(page.getPath());
+        if (known != null) {
+            page.setId(known.getId());
+            if (known.getCanonicalPath() == null) {
+                parser.setEtag(known.getEtag());
+                parser.setLastModified(known.getLastModified());
+            }
+        }
+
+        long start = System.currentTimeMillis();
         try {
             parser.parse();
+            progress.pageFetched(System.currentTimeMillis() - start, true);
+            if (known != null && isUnchanged(known, parser)) {
+                keepUnchanged(known, parser);
+                return;
+            }
             page.setCode(parser.getCode());
             page.setContent(parser.getContent());
+            page.setContentHash(parser.getContentHash());
+            page.setEtag(parser.getEtag());
+            page.setLastModified(parser.getLastModified());
+            markDuplicate(parser);
 
             if (storage.add(page)) {
-                log.info("Добавлена страница: {}", url);
+                knownPages.visit(page.getPath());
+                log.debug("Добавлена страница: {}", url);
                 createNewTask(parser.getLinks());
             }
         } catch (ParserException e) {
+            progress.pageFetched(System.currentTimeMillis() - start, false);
+            if (known != null && !isGone(parser.getCode())) {
+                keepAfterError(known, parser);
+                return;
+            }
             page.setCode(parser.getCode());
             page.setContent(parser.getContent());
+            duplicatePages.forget(page.getPath());
 
-            if (printError) {
-                storage.add(page);
+            if (printError && storage.add(page)) {
+                knownPages.visit(page.getPath());
             }
         } catch (Exception e){
             log.error("Непредвиденная ошибка: {}",e.getMessage());
         }
     }
 
+    // Копия страницы сохраняется со ссылкой на каноническую и не индексируется, ссылки с неё обходятся
+    private void markDuplicate(Parser parser) {
+        if (!duplicatePages.isEnabled() || parser.getDocument() == null) {
+            return;
+        }
+        Long simhash = duplicatePages.fingerprint(parser.getDocument().text());
+        String canonicalPath = duplicatePages.findCanonical(page.getPath(), page.getContentHash(), simhash);
+        page.setSimhash(simhash);
+        page.setCanonicalPath(canonicalPath);
+        if (canonicalPath != null) {
+            progress.pageDuplicate();
+            log.debug("Страница {} повторяет страницу {}", page.getPath(), canonicalPath);
+        }
+    }
+
+    private boolean isUnchanged(PageVersion known, Parser parser) {
+        if (known.getCanonicalPath() != null) {
+            return false;
+        }
+        return parser.isNotModified()
+                || known.getContentHash() != null && Objects.equals(known.getContentHash(), parser.getContentHash());
+    }
+
+    // Неизменившаяся страница не сохраняется и не индексируется, но ссылки с неё обходятся
+    private void keepUnchanged(PageVersion known, Parser parser) {
+        knownPages.visit(page.getPath());
+        progress.pageUnchanged();
+        if (parser.isNotModified()) {
+            followStoredLinks(known, parser);
+        } else {
+            createNewTask(parser.getLinks());
+        }
+    }
+
+    // Временная ошибка (тайм-аут, 5xx) не заменяет сохранённую страницу и её индекс,
+    // а ссылки берутся из сохранённого содержимого, чтобы страницы за ней не сочли исчезнувшими
+    private void keepAfterError(PageVersion known, Parser parser) {
+        knownPages.visit(page.getPath());
+        log.debug("Страница {} временно недоступна (код {}), сохранена прежняя версия", page.getPath(), parser.getCode());
+        followStoredLinks(known, parser);
+    }
+
+    // Страница удалена с сайта: прежняя версия заменяется записью об ошибке или удаляется вместе с индексом
+    private boolean isGone(int code) {
+        return code == HttpStatus.NOT_FOUND.value() || code == HttpStatus.GONE.value();
+    }
+
+    private void followStoredLinks(PageVersion known, Parser parser) {
+        String storedContent = knownPages.getStoredContent(known);
+        if (storedContent == null) {
+            return;
+        }
+        parser.parseStored(storedContent);
+        createNewTask(parser.getLinks());
+    }
+
     private void createNewTask(List<String> links) {
-        List<ParserAction> tasks = new ArrayList<>();
         for (String link : links) {
             PageEntity pageFromLink = new PageEntity();
             String normalizeLink = getNormalizeLink(link);
@@ -67,15 +157,19 @@ public class ParserAction extends RecursiveAction {
                 pageFromLink.setSite(page.getSite());
                 pageFromLink.setPath(normalizeLink);
 
-                if (!storage.contains(pageFromLink)) {
+                if (storage.markSeen(pageFromLink)) {
+                    progress.pageDiscovered();
                     ParserAction parserAction = parserContext.getParserAction();
+                    parserAction.setCrawlJob(crawlJob);
                     parserAction.setStorage(storage);
+                    parserAction.setProgress(progress);
+                    parserAction.setKnownPages(knownPages);
+                    parserAction.setDuplicatePages(duplicatePages);
                     parserAction.setPage(pageFromLink);
-                    tasks.add(parserAction);
+                    crawlJob.submit(parserAction);
                 }
             }
         }
-        ForkJoinTask.invokeAll(tasks);
     }
 
     private String getNormalizeLink(String link) {
@@ -0,0 +1,84 @@
+package searchengine.services.indexing.progress;
+
+import lombok.Getter;
+import lombok.Setter;
+import searchengine.entity.SiteEntity;
+import searchengine.services.indexing.parser.CrawlJob;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Счётчики обхода одного сайта, обновляются потоками загрузки и записи без блокировок
+@Getter
+public class IndexingProgress {
+
+    private final SiteEntity site;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final LongAdder discovered = new LongAdder();
+    private final LongAdder fetched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder indexed = new LongAdder();
+    // Страницы, не изменившиеся с предыдущего обхода
+    private final LongAdder unchanged = new LongAdder();
+    // Копии других страниц сайта, сохранённые без индексации
+    private final LongAdder duplicates = new LongAdder();
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+
+    @Setter
+    private volatile CrawlJob crawlJob;
+    private volatile long lastFetchAt;
+    private volatile long finishedAt;
+
+    public IndexingProgress(SiteEntity site) {
+        this.site = site;
+    }
+
+    public void pageDiscovered() {
+        discovered.increment();
+    }
+
+    public void pageFetched(long millis, boolean success) {
+        (success ? fetched : failed).increment();
+        fetchLatency.record(millis);
+        lastFetchAt = System.currentTimeMillis();
+    }
+
+    public void pageUnchanged() {
+        unchanged.increment();
+    }
+
+    public void pageDuplicate() {
+        duplicates.increment();
+    }
+
+    public void pagePersisted() {
+        persisted.increment();
+    }
+
+    public void pageIndexed() {
+        indexed.increment();
+    }
+
+    public void finish() {
+        if (finishedAt == 0) {
+            finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    // Средняя скорость загрузки с начала обхода до текущего момента или до его завершения
+    public double getPagesPerSecond() {
+        long end = isFinished() ? finishedAt : System.currentTimeMillis();
+        long elapsed = Math.max(end - startedAt, 1);
+        return (fetched.sum() + failed.sum()) * 1000.0 / elapsed;
+    }
+
+    public int getPendingTasks() {
+        CrawlJob job = crawlJob;
+        return job == null || isFinished() ? 0 : job.getPending();
+    }
+}
@@ -0,0 +1,33 @@
+package searchengine.services.indexing.progress;
+
+import org.springframework.stereotype.Component;
+import searchengine.entity.SiteEntity;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ход индексации сайтов. Счётчики сохраняются после завершения обхода до следующего запуска
+@Component
+public class IndexingProgressRegistry {
+
+    private final Map<Long, IndexingProgress> progresses = new ConcurrentHashMap<>();
+
+    public IndexingProgress open(SiteEntity site) {
+        IndexingProgress progress = new IndexingProgress(site);
+        progresses.put(site.getId(), progress);
+        return progress;
+    }
+
+    public IndexingProgress get(SiteEntity site) {
+        return site == null || site.getId() == null ? null : progresses.get(site.getId());
+    }
+
+    public Collection<IndexingProgress> getAll() {
+        return progresses.values();
+    }
+
+    public void clear() {
+        progresses.clear();
+    }
+}
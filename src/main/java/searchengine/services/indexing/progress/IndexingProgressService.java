@@ -0,0 +1,128 @@
+package searchengine.services.indexing.progress;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import searchengine.dto.indexing.IndexingProgressItem;
+import searchengine.dto.indexing.IndexingProgressResponse;
+import searchengine.services.indexing.parser.CrawlJob;
+import searchengine.services.indexing.parser.CrawlScheduler;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Снимок хода индексации и его рассылка подписчикам через Server-Sent Events
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IndexingProgressService {
+
+    private static final String EVENT_NAME = "progress";
+
+    private final IndexingProgressRegistry registry;
+    private final CrawlScheduler crawlScheduler;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    @Value("${indexing-settings.progress-interval}")
+    private long progressInterval;
+
+    private ScheduledExecutorService broadcaster;
+
+    public IndexingProgressResponse getProgress() {
+        List<IndexingProgressItem> sites = registry.getAll().stream()
+                .sorted(Comparator.comparing(progress -> progress.getSite().getUrl()))
+                .map(this::toItem)
+                .toList();
+        return IndexingProgressResponse.builder()
+                .result(true)
+                .time(System.currentTimeMillis())
+                .queuedTasks(crawlScheduler.getQueuedTasks())
+                .sites(sites)
+                .build();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        // Первый снимок отправляется сразу, не дожидаясь рассылки
+        send(emitter, getProgress());
+        log.info("Подписка на ход индексации. Подписчиков: {}", emitters.size());
+        return emitter;
+    }
+
+    private IndexingProgressItem toItem(IndexingProgress progress) {
+        LatencyHistogram latency = progress.getFetchLatency();
+        CrawlJob crawlJob = progress.getCrawlJob();
+        return IndexingProgressItem.builder()
+                .url(progress.getSite().getUrl())
+                .name(progress.getSite().getName())
+                .finished(progress.isFinished())
+                .startTime(progress.getStartedAt())
+                .lastFetchTime(progress.getLastFetchAt())
+                .discovered(progress.getDiscovered().sum())
+                .fetched(progress.getFetched().sum())
+                .failed(progress.getFailed().sum())
+                .persisted(progress.getPersisted().sum())
+                .indexed(progress.getIndexed().sum())
+                .unchanged(progress.getUnchanged().sum())
+                .duplicates(progress.getDuplicates().sum())
+                .pagesPerSecond(progress.getPagesPerSecond())
+                .fetchP50(latency.percentile(0.5))
+                .fetchP90(latency.percentile(0.9))
+                .fetchP99(latency.percentile(0.99))
+                .pendingTasks(progress.getPendingTasks())
+                .queuedTasks(crawlJob == null || progress.isFinished() ? 0 : crawlScheduler.getQueuedTasks(crawlJob))
+                .build();
+    }
+
+    private void broadcast() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        try {
+            IndexingProgressResponse progress = getProgress();
+            emitters.forEach(emitter -> send(emitter, progress));
+        } catch (Exception e) {
+            // Исключение остановило бы периодическую рассылку
+            log.error("Ошибка рассылки хода индексации: {}", e.getMessage(), e);
+        }
+    }
+
+    private void send(SseEmitter emitter, IndexingProgressResponse progress) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписчик хода индексации отключён: {}", e.getMessage());
+            emitters.remove(emitter);
+        }
+    }
+
+    @PostConstruct
+    private void initialize() {
+        broadcaster = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "indexing-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(progressInterval, 1);
+        broadcaster.scheduleWithFixedDelay(this::broadcast, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        broadcaster.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
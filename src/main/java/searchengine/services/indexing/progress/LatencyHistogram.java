@@ -0,0 +1,40 @@
+package searchengine.services.indexing.progress;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Гистограмма времени загрузки без блокировок: корзина i содержит значения от 2^(i-1) до 2^i миллисекунд,
+// поэтому перцентили приблизительные - верхняя граница корзины
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long millis) {
+        int bucket = millis <= 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(millis), BUCKETS - 1);
+        counts.incrementAndGet(bucket);
+    }
+
+    // Значение в миллисекундах, которое не превышает указанная доля загрузок, 0 - загрузок не было
+    public long percentile(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+}
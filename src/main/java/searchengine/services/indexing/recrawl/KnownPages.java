@@ -0,0 +1,46 @@
+package searchengine.services.indexing.recrawl;
+
+import searchengine.dto.indexing.PageVersion;
+import searchengine.entity.PageEntity;
+import searchengine.services.page.PageService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Страницы сайта, сохранённые предыдущим обходом. Страница удаляется из набора, когда повторный обход
+// её сохраняет или подтверждает, что она не изменилась; оставшиеся после обхода страницы исчезли с сайта.
+// После полной очистки базы набор пуст, и обход индексирует все страницы заново
+public class KnownPages {
+
+    private final PageService pageService;
+    private final Map<String, PageVersion> pages = new ConcurrentHashMap<>();
+
+    public KnownPages(PageService pageService, List<PageVersion> versions) {
+        this.pageService = pageService;
+        versions.forEach(version -> pages.put(version.getPath(), version));
+    }
+
+    // null, если страница не встречалась при предыдущем обходе
+    public PageVersion get(String path) {
+        return pages.get(path);
+    }
+
+    public void visit(String path) {
+        pages.remove(path);
+    }
+
+    public String getStoredContent(PageVersion version) {
+        PageEntity page = pageService.get(version.getId());
+        return page == null ? null : page.getContent();
+    }
+
+    public Collection<PageVersion> getUnvisited() {
+        return pages.values();
+    }
+
+    public int size() {
+        return pages.size();
+    }
+}
@@ -1,5 +1,7 @@
 package searchengine.services.indexing.site;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,13 +10,21 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 import searchengine.config.context.ParserContext;
 import searchengine.config.context.StorageContext;
+import searchengine.dto.indexing.PageVersion;
 import searchengine.entity.PageEntity;
 import searchengine.entity.SiteEntity;
 import searchengine.exception.IndexException;
 import searchengine.exception.IndexingException;
 import searchengine.exception.StartIndexingException;
 import searchengine.exception.StopIndexingException;
+import searchengine.services.indexing.duplicate.DuplicatePages;
+import searchengine.services.indexing.page.LemmaFrequencyBuffers;
+import searchengine.services.indexing.parser.CrawlJob;
+import searchengine.services.indexing.parser.CrawlScheduler;
 import searchengine.services.indexing.parser.ParserAction;
+import searchengine.services.indexing.progress.IndexingProgress;
+import searchengine.services.indexing.progress.IndexingProgressRegistry;
+import searchengine.services.indexing.recrawl.KnownPages;
 import searchengine.services.indexing.storage.Storage;
 import searchengine.services.page.PageService;
 import searchengine.services.site.SiteService;
@@ -22,7 +32,7 @@ import searchengine.services.site.SiteService;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Data
@@ -35,27 +45,45 @@ public class IndexingSiteService {
     private final SiteService siteService;
     private final ParserContext parserContext;
     private final PageService pageService;
+    private final LemmaFrequencyBuffers lemmaFrequencyBuffers;
+    private final CrawlScheduler crawlScheduler;
+    private final IndexingProgressRegistry progressRegistry;
+    private final MeterRegistry meterRegistry;
 
     private SiteEntity site;
     private PageEntity startPage;
     private Storage<PageEntity> storage;
     private ParserAction parserAction;
-    private ForkJoinPool pool;
+    private CrawlJob crawlJob;
+    private IndexingProgress progress;
+    private KnownPages knownPages;
+    private DuplicatePages duplicatePages;
     private boolean indexing;
     private boolean finished;
+    private boolean metricsRegistered;
 
     @Value("${indexing-settings.count-page-to-update-site}")
     private int countPageToUpdateSite;
 
+    @Value("${indexing-settings.duplicates.enabled}")
+    private boolean duplicatesEnabled;
+
+    @Value("${indexing-settings.duplicates.max-distance}")
+    private int duplicatesMaxDistance;
+
+    @Value("${indexing-settings.duplicates.min-words}")
+    private int duplicatesMinWords;
+
     public void startIndexing() throws IndexingException {
         if (isIndexing()) {
             throw new StartIndexingException("Индексация уже запущена.");
         }
 
         site = siteService.createSite(site);
+        lemmaFrequencyBuffers.open(site);
         initialize();
 
-        Thread thread = new Thread(this::startPool);
+        Thread thread = new Thread(this::startCrawl);
         thread.setDaemon(true);
         thread.start();
 
@@ -71,31 +99,114 @@ public class IndexingSiteService {
         startPage.setPath("/");
 
         storage = storageContext.getStorage();
+        storage.markSeen(startPage);
         parserAction = parserContext.getParserAction();
 
-        pool = new ForkJoinPool();
-        log.info("Инициализация завершена. Начальная страница: {}", startPage);
+        crawlJob = crawlScheduler.createJob(site);
+        List<PageVersion> versions = pageService.getVersions(site);
+        knownPages = new KnownPages(pageService, versions);
+        duplicatePages = new DuplicatePages(duplicatesEnabled, duplicatesMaxDistance, duplicatesMinWords, versions);
+        progress = progressRegistry.open(site);
+        progress.setCrawlJob(crawlJob);
+        progress.pageDiscovered();
+        registerMetrics();
+        log.info("Инициализация завершена. Начальная страница: {}, страниц от предыдущего обхода: {}",
+                startPage, knownPages.size());
+    }
+
+    // Сервис сайта живёт до остановки приложения, поэтому показатели регистрируются один раз и читают текущий обход
+    private void registerMetrics() {
+        if (metricsRegistered) {
+            return;
+        }
+        Gauge.builder("indexing.storage.queue", this, service -> service.getStorage().getQueueSize())
+                .description("Страницы, ожидающие записи в базу данных")
+                .tag("site", site.getUrl())
+                .register(meterRegistry);
+        Gauge.builder("crawler.pending", this, service -> service.getProgress().getPendingTasks())
+                .description("Незавершённые задачи обхода сайта")
+                .tag("site", site.getUrl())
+                .register(meterRegistry);
+        metricsRegistered = true;
     }
 
-    private void startPool() {
+    private void startCrawl() {
         parserAction.setPage(startPage);
         parserAction.setStorage(storage);
+        parserAction.setCrawlJob(crawlJob);
+        parserAction.setProgress(progress);
+        parserAction.setKnownPages(knownPages);
+        parserAction.setDuplicatePages(duplicatePages);
 
-        log.info("Запуск pool потоков индексации.");
-        pool.invoke(parserAction);
+        log.info("Запуск обхода сайта {}.", site.getUrl());
+        crawlJob.submit(parserAction);
+        try {
+            crawlJob.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            crawlJob.cancel();
+        }
 
         if (!isFinished()) {
             setFinished(true);
             setIndexing(false);
-            log.info("Самостоятельное завершение pool потоков индексации");
+            log.info("Самостоятельное завершение обхода сайта {}", site.getUrl());
+            removeVanishedPages();
             finishWithoutError();
             saveResult();
+            storage.awaitSaved();
+            resolveDuplicates();
+        }
+    }
+
+    // Страницы предыдущего обхода, не найденные при завершённом обходе, удаляются вместе с индексом.
+    // При остановке обхода пользователем они сохраняются: часть сайта просто не была обойдена
+    private void removeVanishedPages() {
+        int removed = 0;
+        for (PageVersion version : knownPages.getUnvisited()) {
+            pageService.deleteWithIndex(version.getId());
+            duplicatePages.forget(version.getPath());
+            removed++;
+        }
+        if (removed > 0) {
+            log.info("Удалено {} страниц, отсутствующих на сайте {}", removed, site.getUrl());
+        }
+    }
+
+    // Копии, чья каноническая страница исчезла или изменилась, сравниваются с текущими каноническими страницами заново:
+    // копия указывает на другую страницу или становится канонической и индексируется
+    private void resolveDuplicates() {
+        if (!duplicatePages.isEnabled()) {
+            return;
+        }
+        int reindexed = 0;
+        for (PageVersion duplicate : pageService.getDuplicates(site)) {
+            if (duplicatePages.isDuplicateOf(duplicate.getCanonicalPath(), duplicate.getContentHash(),
+                    duplicate.getSimhash())) {
+                continue;
+            }
+            PageEntity page = pageService.get(duplicate.getId());
+            if (page == null) {
+                continue;
+            }
+            pageService.updateCanonicalPath(page,
+                    duplicatePages.findCanonical(page.getPath(), page.getContentHash(), page.getSimhash()));
+            try {
+                pageService.index(page);
+                reindexed++;
+            } catch (IndexException e) {
+                log.error("Ошибка индексации страницы: {}", page, e);
+            }
+        }
+        if (reindexed > 0) {
+            log.info("Пересмотрено {} копий страниц сайта {}", reindexed, site.getUrl());
         }
     }
 
     private void finish() {
         setFinished(true);
-        pool.shutdownNow();
+        crawlJob.cancel();
+        progress.finish();
     }
 
     private void finishWithError(String error) {
@@ -128,6 +239,24 @@ public class IndexingSiteService {
             });
         }
         executorService.shutdown();
+
+        Storage<PageEntity> pageStorage = storage;
+        Thread thread = new Thread(() -> flushLemmaFrequencies(executorService, pageStorage));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Частоты лемм сбрасываются в базу после индексации последней страницы, в том числе записанной хранилищем в фоне
+    private void flushLemmaFrequencies(ExecutorService executorService, Storage<PageEntity> pageStorage) {
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            pageStorage.awaitSaved();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lemmaFrequencyBuffers.close(site);
+            log.info("Частоты лемм сайта {} сохранены.", site.getUrl());
+        }
     }
 
     public void stopIndexing() throws IndexingException {
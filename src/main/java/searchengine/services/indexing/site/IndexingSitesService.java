@@ -3,16 +3,20 @@ package searchengine.services.indexing.site;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.config.SitesList;
 import searchengine.config.context.IndexingContext;
+import searchengine.config.context.SearchEngineContext;
 import searchengine.exception.IndexingException;
 import searchengine.mapper.SiteMapper;
 import searchengine.repository.IndexRepository;
 import searchengine.repository.LemmaRepository;
 import searchengine.repository.PageRepository;
 import searchengine.repository.SiteRepository;
+import searchengine.services.indexing.progress.IndexingProgressRegistry;
+import searchengine.services.searching.cache.IndexGeneration;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +34,12 @@ public class IndexingSitesService {
     private final IndexRepository indexRepository;
     private final PageRepository pageRepository;
     private final SiteMapper siteMapper;
+    private final SearchEngineContext searchEngineContext;
+    private final IndexGeneration indexGeneration;
+    private final IndexingProgressRegistry progressRegistry;
+
+    @Value("${indexing-settings.mode}")
+    private String mode;
 
     private boolean indexing;
     private List<IndexingSiteService> services;
@@ -42,12 +52,28 @@ public class IndexingSitesService {
 
         log.info("Запуск индексации.");
         initialize();
-        removeSites();
+        prepareSites();
         servicesAction(IndexingSiteService::startIndexing);
         setIndexing(true);
         log.info("Индексация успешно запущена.");
     }
 
+    // Полная индексация начинается с пустой базы, повторная сохраняет страницы и индекс предыдущего обхода
+    private void prepareSites() throws IndexingException {
+        log.info("Режим индексации: {}", mode);
+        switch (mode) {
+            case "full":
+                removeSites();
+                break;
+            case "incremental":
+                break;
+            default:
+                String errorMsg = "Не указан режим индексации.";
+                log.error("Ошибка выбора режима индексации: {}", errorMsg);
+                throw new IndexingException(errorMsg);
+        }
+    }
+
     @Transactional
     private void removeSites() {
         log.info("Удаление существующих данных из базы данных.");
@@ -55,6 +81,9 @@ public class IndexingSitesService {
         lemmaRepository.deleteAllInBatch();
         pageRepository.deleteAllInBatch();
         siteRepository.deleteAllInBatch();
+        searchEngineContext.getSearchEngine().clear();
+        indexGeneration.increment();
+        progressRegistry.clear();
         log.info("Удаление данных завершено.");
     }
 
@@ -1,7 +1,5 @@
 package searchengine.services.indexing.storage;
 
-import searchengine.entity.PageEntity;
-
 import java.util.List;
 import java.util.Set;
 
@@ -11,6 +9,9 @@ public interface Storage<E> {
 
     boolean contains(E e);
 
+    // Отмечает страницу как найденную, возвращает false, если она уже встречалась при обходе
+    boolean markSeen(E e);
+
     boolean add(E e);
 
     int size();
@@ -20,4 +21,13 @@ public interface Storage<E> {
     void update(E e);
 
     Set<E> getSet();
+
+    // Страницы, принятые хранилищем, но ещё не записанные в базу данных
+    default int getQueueSize() {
+        return 0;
+    }
+
+    // Дожидается записи страниц, принятых до save(), если хранилище записывает их в фоне
+    default void awaitSaved() {
+    }
 }
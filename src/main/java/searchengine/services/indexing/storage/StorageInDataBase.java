@@ -21,6 +21,7 @@ public class StorageInDataBase implements Storage<PageEntity> {
     private static final Logger log = LoggerFactory.getLogger(StorageInDataBase.class);
     private final PageService pageService;
     private final SiteService siteService;
+    private final UrlSeenSet seen;
 
     @Override
     public List<PageEntity> save() {
@@ -29,22 +30,24 @@ public class StorageInDataBase implements Storage<PageEntity> {
 
     @Override
     public boolean contains(PageEntity page) {
-        return pageService.existsBySiteAndPath(page.getSite(), page.getPath());
+        return seen.contains(page.getPath());
+    }
+
+    @Override
+    public boolean markSeen(PageEntity page) {
+        return seen.add(page.getPath());
     }
 
     @Override
     public boolean add(PageEntity page) {
-        if (!contains(page)) {
-            try {
-                PageEntity newPage = pageService.save(page);
-                pageService.index(newPage);
-                update(newPage);
-            } catch (Exception e) {
-                log.error("Ошибка сохранения или индексации страницы {}. Ошибка: {}", page, e.getMessage());
-            }
-            return true;
+        try {
+            PageEntity newPage = pageService.save(page);
+            pageService.index(newPage);
+            update(newPage);
+        } catch (Exception e) {
+            log.error("Ошибка сохранения или индексации страницы {}. Ошибка: {}", page, e.getMessage());
         }
-        return false;
+        return true;
     }
 
     @Override
@@ -10,9 +10,11 @@ import searchengine.services.page.PageService;
 import searchengine.services.site.SiteService;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
@@ -22,8 +24,10 @@ public class StorageInMemory implements Storage<PageEntity> {
 
     private final PageService service;
     private final SiteService siteService;
-    private final Set<PageEntity> set = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final UrlSeenSet seen;
+    private final Queue<PageEntity> pages = new ConcurrentLinkedQueue<>();
 
+    private final AtomicInteger size = new AtomicInteger(0);
     private final AtomicInteger previous = new AtomicInteger(0);
 
     @Value("${indexing-settings.count-page-to-update-site}")
@@ -36,26 +40,40 @@ public class StorageInMemory implements Storage<PageEntity> {
 
     @Override
     public boolean contains(PageEntity page) {
-        return set.contains(page);
+        return seen.contains(page.getPath());
+    }
+
+    @Override
+    public boolean markSeen(PageEntity page) {
+        return seen.add(page.getPath());
     }
 
     @Override
     public boolean add(PageEntity page) {
-        if (set.add(page)) {
-            update(page);
-            return true;
-        }
-        return false;
+        pages.add(page);
+        size.incrementAndGet();
+        update(page);
+        return true;
     }
 
     @Override
     public int size() {
-        return set.size();
+        return size.get();
+    }
+
+    // Все страницы сохраняются одним пакетом после завершения обхода
+    @Override
+    public int getQueueSize() {
+        return size.get();
     }
 
     @Override
     public boolean remove(PageEntity page) {
-        return set.remove(page);
+        if (pages.remove(page)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -70,6 +88,6 @@ public class StorageInMemory implements Storage<PageEntity> {
 
     @Override
     public Set<PageEntity> getSet() {
-        return Collections.unmodifiableSet(set);
+        return Collections.unmodifiableSet(new HashSet<>(pages));
     }
 }
@@ -0,0 +1,183 @@
+package searchengine.services.indexing.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import searchengine.entity.PageEntity;
+import searchengine.exception.IndexException;
+import searchengine.services.page.PageService;
+import searchengine.services.site.SiteService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Страницы складываются в ограниченную очередь, которую пакетами разбирают потоки записи:
+// сохранение страниц, затем индексация. При заполнении очереди поток обхода ждёт.
+@Slf4j
+@Component
+@Scope("prototype")
+public class StorageWriteBehind implements Storage<PageEntity> {
+
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final PageService pageService;
+    private final SiteService siteService;
+    private final UrlSeenSet seen;
+    private final BlockingQueue<PageEntity> queue;
+    private final ExecutorService writers;
+    private final int batchSize;
+
+    private final AtomicInteger size = new AtomicInteger(0);
+    private volatile boolean closed;
+
+    public StorageWriteBehind(PageService pageService, SiteService siteService, UrlSeenSet seen,
+                              int queueCapacity, int writersCount, int batchSize) {
+        this.pageService = pageService;
+        this.siteService = siteService;
+        this.seen = seen;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.batchSize = Math.max(batchSize, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(writersCount, 1), runnable -> {
+            Thread thread = new Thread(runnable, "storage-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < Math.max(writersCount, 1); i++) {
+            writers.submit(this::write);
+        }
+    }
+
+    // Закрывает очередь без ожидания: потоки записи дописывают и индексируют оставшиеся страницы сами,
+    // поэтому остановка индексации из HTTP-запроса не ждёт записи
+    @Override
+    public List<PageEntity> save() {
+        closed = true;
+        writers.shutdown();
+        return List.of();
+    }
+
+    @Override
+    public void awaitSaved() {
+        try {
+            if (!writers.awaitTermination(1, TimeUnit.HOURS)) {
+                log.warn("Запись страниц не завершилась, в очереди осталось {}", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean contains(PageEntity page) {
+        return seen.contains(page.getPath());
+    }
+
+    @Override
+    public boolean markSeen(PageEntity page) {
+        return seen.add(page.getPath());
+    }
+
+    @Override
+    public boolean add(PageEntity page) {
+        if (closed) {
+            return false;
+        }
+        try {
+            queue.put(page);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean remove(PageEntity page) {
+        return queue.remove(page);
+    }
+
+    @Override
+    public void update(PageEntity page) {
+        siteService.updateSiteTime(page.getSite());
+    }
+
+    @Override
+    public Set<PageEntity> getSet() {
+        return Collections.unmodifiableSet(new HashSet<>(queue));
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void write() {
+        List<PageEntity> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PageEntity page = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (page == null) {
+                    continue;
+                }
+                batch.add(page);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Ошибка записи пакета страниц: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PageEntity> batch) {
+        List<PageEntity> savedPages = savePages(batch);
+        for (PageEntity page : savedPages) {
+            try {
+                pageService.index(page);
+            } catch (IndexException e) {
+                log.error("Ошибка индексации страницы: {}", page, e);
+            }
+        }
+        size.addAndGet(savedPages.size());
+        if (!savedPages.isEmpty()) {
+            update(savedPages.get(savedPages.size() - 1));
+        }
+    }
+
+    private List<PageEntity> savePages(List<PageEntity> batch) {
+        try {
+            return pageService.saveAll(new LinkedHashSet<>(batch));
+        } catch (Exception e) {
+            log.warn("Не удалось сохранить пакет из {} страниц, сохранение по одной: {}", batch.size(), e.getMessage());
+            List<PageEntity> savedPages = new ArrayList<>();
+            for (PageEntity page : batch) {
+                try {
+                    savedPages.add(pageService.save(page));
+                } catch (Exception ex) {
+                    log.error("Ошибка сохранения страницы {}. Ошибка: {}", page, ex.getMessage());
+                }
+            }
+            return savedPages;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package searchengine.services.indexing.storage;
+
+import java.nio.charset.StandardCharsets;
+
+// Множество уже найденных путей сайта: хранит только 64-битные хеши нормализованных путей
+// в открытой адресации по сегментам, без ссылок на страницы и их содержимое.
+// Обход только добавляет пути, а добавление всё равно проверяет таблицу, поэтому фильтр перед ней не нужен
+public class UrlSeenSet {
+
+    private static final int SEGMENTS = 16;
+    private static final long EMPTY = 0L;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public UrlSeenSet(int expectedSize) {
+        int segmentCapacity = Math.max(expectedSize / SEGMENTS, 16);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    // Возвращает true, если путь встретился впервые
+    public boolean add(String path) {
+        long hash = hash(normalize(path));
+        return segment(hash).add(hash);
+    }
+
+    public boolean contains(String path) {
+        long hash = hash(normalize(path));
+        return segment(hash).contains(hash);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public static String normalize(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        return path;
+    }
+
+    // FNV-1a по байтам UTF-8 с финальным перемешиванием битов
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+    }
+
+    private static final class Segment {
+
+        private long[] table;
+        private int size;
+
+        private Segment(int capacity) {
+            table = new long[tableSize(capacity)];
+        }
+
+        private synchronized boolean add(long hash) {
+            if ((size + 1) * 4L > table.length * 3L) {
+                resize();
+            }
+            if (insert(table, hash)) {
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean contains(long hash) {
+            int mask = table.length - 1;
+            for (int i = (int) hash & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+                if (table[i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] newTable = new long[table.length * 2];
+            for (long hash : table) {
+                if (hash != EMPTY) {
+                    insert(newTable, hash);
+                }
+            }
+            table = newTable;
+        }
+
+        private static boolean insert(long[] table, long hash) {
+            int mask = table.length - 1;
+            int i = (int) hash & mask;
+            while (table[i] != EMPTY) {
+                if (table[i] == hash) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = hash;
+            return true;
+        }
+
+        private static int tableSize(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity * 4 / 3, 16) - 1) << 1;
+            return Math.max(size, 16);
+        }
+    }
+}
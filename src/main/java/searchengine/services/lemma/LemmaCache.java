@@ -0,0 +1,67 @@
+package searchengine.services.lemma;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Ограниченный кеш из двух поколений: при заполнении текущее поколение становится старым,
+// а старое отбрасывается. Часто используемые записи переносятся в текущее поколение при чтении.
+public class LemmaCache<V> {
+
+    private final int generationSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Map<String, V> current = new ConcurrentHashMap<>();
+    private volatile Map<String, V> previous = new ConcurrentHashMap<>();
+
+    public LemmaCache(int maxSize) {
+        this.generationSize = Math.max(maxSize / 2, 1);
+    }
+
+    public V get(String key, Function<String, V> loader) {
+        V value = current.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        value = previous.get(key);
+        if (value != null) {
+            hits.increment();
+            put(key, value);
+            return value;
+        }
+        misses.increment();
+        value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return current.size() + previous.size();
+    }
+
+    private void put(String key, V value) {
+        Map<String, V> generation = current;
+        generation.put(key, value);
+        if (generation.size() > generationSize) {
+            rotate(generation);
+        }
+    }
+
+    private synchronized void rotate(Map<String, V> full) {
+        if (current == full) {
+            previous = full;
+            current = new ConcurrentHashMap<>();
+        }
+    }
+}
@@ -4,12 +4,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.morphology.LuceneMorphology;
 import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
 import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Component
@@ -17,17 +22,43 @@ public class LemmaSearcher {
 
     private final LuceneMorphology russianMorphology;
     private final LuceneMorphology englishMorphology;
-    private static final String REGEX = "\\P{L}+";
+    private static final Pattern RUSSIAN_WORD = Pattern.compile("[а-яё]+");
+    private static final Pattern ENGLISH_WORD = Pattern.compile("[a-z]+");
+    // Размер кэша вне приложения (бенчмарки), в приложении задаётся lemma-settings.cache-size
+    private static final int DEFAULT_CACHE_SIZE = 200_000;
     private static final Set<String> RUSSIAN_PARTICLES_NAMES = Set.of("МЕЖД", "ПРЕДЛ", "СОЮЗ");
     private static final Set<String> ENGLISH_PARTICLES_NAMES = Set.of("PREP", "CONJ", "ARTICLE", "PART");
 
-    public LemmaSearcher(LuceneMorphology russianMorphology, LuceneMorphology englishMorphology) {
+    // Результат морфологического разбора словоформы, общий для индексации, запросов и сниппетов
+    private final LemmaCache<WordForm> cache;
+
+    public LemmaSearcher(LuceneMorphology russianMorphology, LuceneMorphology englishMorphology, int cacheSize) {
         this.russianMorphology = russianMorphology;
         this.englishMorphology = englishMorphology;
+        this.cache = new LemmaCache<>(cacheSize);
+    }
+
+    @Autowired
+    public LemmaSearcher(@Value("${lemma-settings.cache-size}") int cacheSize, MeterRegistry meterRegistry)
+            throws IOException {
+        this(cacheSize);
+        FunctionCounter.builder("lemma.cache.hits", this, LemmaSearcher::getCacheHits)
+                .description("Число словоформ, найденных в кэше лемм")
+                .register(meterRegistry);
+        FunctionCounter.builder("lemma.cache.misses", this, LemmaSearcher::getCacheMisses)
+                .description("Число словоформ, разобранных морфологией при промахе кэша лемм")
+                .register(meterRegistry);
+        Gauge.builder("lemma.cache.size", this, LemmaSearcher::getCacheSize)
+                .description("Число словоформ в кэше лемм")
+                .register(meterRegistry);
     }
 
     public LemmaSearcher() throws IOException {
-        this(new RussianLuceneMorphology(), new EnglishLuceneMorphology());
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    private LemmaSearcher(int cacheSize) throws IOException {
+        this(new RussianLuceneMorphology(), new EnglishLuceneMorphology(), cacheSize);
         log.info("Инициализированы LemmaSearcher с RussianLuceneMorphology и LemmaSearcher с EnglishLuceneMorphology.");
     }
 
@@ -37,17 +68,32 @@ public class LemmaSearcher {
             return Collections.emptyMap();
         }
 
-        Map<String, Integer> lemmas = getWords(text).parallelStream()
-                .filter(this::isNotParticle)
-                .map(this::getNormalForms)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toConcurrentMap(
-                        lemma -> lemma,
-                        lemma -> 1,
-                        Integer::sum
-                ));
-
-        log.info("Получены леммы: {}", lemmas);
+        Map<String, Integer> lemmas = new HashMap<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> {
+            String lemma = getLemma(word);
+            if (lemma != null) {
+                lemmas.merge(lemma, 1, Integer::sum);
+            }
+        });
+
+        log.debug("Получены леммы: {}", lemmas);
+        return lemmas;
+    }
+
+    // Позиции считаются по всем словам текста, включая служебные, чтобы расстояния совпадали с исходным текстом
+    public Map<String, TokenPositions> getLemmaPositions(String text) {
+        if (text == null || text.isEmpty()) {
+            log.warn("Передан пустой или нулевой текст для лемматизации.");
+            return Collections.emptyMap();
+        }
+
+        Map<String, TokenPositions> lemmas = new HashMap<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> {
+            String lemma = getLemma(word);
+            if (lemma != null) {
+                lemmas.computeIfAbsent(lemma, key -> new TokenPositions()).add(position, start);
+            }
+        });
         return lemmas;
     }
 
@@ -57,13 +103,39 @@ public class LemmaSearcher {
         return text;
     }
 
+    // Нормальная форма слова или null для служебных частей речи и неизвестных слов
+    public String getLemma(String word) {
+        WordForm wordForm = getWordForm(word);
+        return wordForm.particle() ? null : wordForm.lemma();
+    }
+
     public String getNormalForms(String word) {
-        if (word.matches("[а-яё]+")) {
-            return getNormalForms(russianMorphology, word);
-        } else if (word.matches("[a-z]+")) {
-            return getNormalForms(englishMorphology, word);
+        return getWordForm(word).lemma();
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private WordForm getWordForm(String word) {
+        return cache.get(word, this::parseWordForm);
+    }
+
+    private WordForm parseWordForm(String word) {
+        if (RUSSIAN_WORD.matcher(word).matches()) {
+            return new WordForm(getNormalForms(russianMorphology, word), isRussianParticle(word));
+        } else if (ENGLISH_WORD.matcher(word).matches()) {
+            return new WordForm(getNormalForms(englishMorphology, word), isEnglishParticle(word));
         }
-        return null;
+        return WordForm.UNKNOWN;
     }
 
     private String getNormalForms(LuceneMorphology luceneMorphology, String word) {
@@ -81,30 +153,25 @@ public class LemmaSearcher {
     }
 
     public boolean isParticle(String word) {
-        if (word.matches("[а-яё]+")) {
-            return isRussianParticle(word);
-        } else if (word.matches("[a-z]+")) {
-            return isEnglishParticle(word);
-        }
-        return false;
+        return getWordForm(word).particle();
     }
 
     private boolean isRussianParticle(String word) {
-        return russianMorphology.getMorphInfo(word).parallelStream()
+        return russianMorphology.getMorphInfo(word).stream()
                 .anyMatch(this::hasRussianParticleProperty);
     }
 
     private boolean isEnglishParticle(String word) {
-        return englishMorphology.getMorphInfo(word).parallelStream()
+        return englishMorphology.getMorphInfo(word).stream()
                 .anyMatch(this::hasEnglishParticleProperty);
     }
 
     private boolean hasRussianParticleProperty(String wordBase) {
-        return RUSSIAN_PARTICLES_NAMES.parallelStream().anyMatch(wordBase::contains);
+        return RUSSIAN_PARTICLES_NAMES.stream().anyMatch(wordBase::contains);
     }
 
     private boolean hasEnglishParticleProperty(String wordBase) {
-        return ENGLISH_PARTICLES_NAMES.parallelStream().anyMatch(wordBase::contains);
+        return ENGLISH_PARTICLES_NAMES.stream().anyMatch(wordBase::contains);
     }
 
     public List<String> getWords(String text) {
@@ -113,14 +180,15 @@ public class LemmaSearcher {
             return List.of();
         }
 
-        List<String> words = Arrays.stream(text.toLowerCase(Locale.ROOT)
-                        .replaceAll("[^а-яa-zё\\s]", " ")
-                        .trim()
-                        .split(REGEX))
-                .filter(word -> !word.isEmpty())
-                .collect(Collectors.toList());
+        List<String> words = new ArrayList<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> words.add(word));
 
         log.debug("Получено {} слов из текста", words.size());
         return words;
     }
+
+    private record WordForm(String lemma, boolean particle) {
+
+        private static final WordForm UNKNOWN = new WordForm(null, false);
+    }
 }
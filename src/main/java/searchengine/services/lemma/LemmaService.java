@@ -5,15 +5,18 @@ import searchengine.entity.PageEntity;
 import searchengine.entity.SiteEntity;
 import searchengine.services.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface LemmaService extends Service<LemmaEntity> {
 
     LemmaEntity getBySiteAndLemma(SiteEntity site, LemmaEntity lemma);
     LemmaEntity updateByPageAndLemma(PageEntity page, LemmaEntity lemma);
     LemmaEntity updateByPageAndLemma(PageEntity page, String lemma);
+    Map<String, Long> incrementFrequencies(SiteEntity site, Collection<String> lemmas);
     List<LemmaEntity> getByLemmas(List<String> lemmas);
-    void deleteByPage(PageEntity page);
+    void deleteByPage(PageEntity page, boolean deleteUnusedLemmas);
     void deleteByPageAndLemma(PageEntity page, LemmaEntity lemma);
     void deleteAllById(List<Long> lemmas);
 }
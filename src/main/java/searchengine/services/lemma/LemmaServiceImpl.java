@@ -1,30 +1,33 @@
 package searchengine.services.lemma;
 
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.Hibernate;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import searchengine.entity.IndexEntity;
 import searchengine.entity.LemmaEntity;
 import searchengine.entity.PageEntity;
 import searchengine.entity.SiteEntity;
+import searchengine.repository.IndexBatchRepository;
 import searchengine.repository.LemmaRepository;
 import searchengine.services.AbstractService;
 import searchengine.services.index.IndexService;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 public class LemmaServiceImpl extends AbstractService<LemmaEntity, LemmaRepository> implements LemmaService {
 
     private final IndexService indexService;
+    private final IndexBatchRepository indexBatchRepository;
 
-    public LemmaServiceImpl(LemmaRepository repository, IndexService indexService) {
+    public LemmaServiceImpl(LemmaRepository repository, IndexService indexService,
+                            IndexBatchRepository indexBatchRepository) {
         super(repository);
         this.indexService = indexService;
+        this.indexBatchRepository = indexBatchRepository;
     }
 
     @Override
@@ -73,6 +76,14 @@ public class LemmaServiceImpl extends AbstractService<LemmaEntity, LemmaReposito
         return updateByPageAndLemma(page, lemmaEntity);
     }
 
+    @Override
+    public Map<String, Long> incrementFrequencies(SiteEntity site, Collection<String> lemmas) {
+        if (lemmas.isEmpty()) {
+            return Map.of();
+        }
+        return indexBatchRepository.upsertLemmas(site.getId(), lemmas);
+    }
+
     @Override
     public List<LemmaEntity> getByLemmas(List<String> lemmas) {
         return repository.findAllByLemmaIn(lemmas);
@@ -83,38 +94,21 @@ public class LemmaServiceImpl extends AbstractService<LemmaEntity, LemmaReposito
         LemmaEntity existingLemma = getBySiteAndLemma(page.getSite(), lemma);
         if (existingLemma != null) {
             delete(existingLemma.getId());
-            log.info("Удалена лемма с ID {} из страницы ID {}.", existingLemma.getId(), page.getId());
+            log.debug("Удалена лемма с ID {} из страницы ID {}.", existingLemma.getId(), page.getId());
         } else {
             log.warn("Лемма с ID {} не найдена на странице ID {} для удаления.", lemma.getId(), page.getId());
         }
     }
 
     @Override
-    public void deleteByPage(PageEntity page) {
-        List<Long> deleteLemmasId = new ArrayList<>();
-        //TODO переделать запрос напрямую в базе
-        Hibernate.initialize(page.getIndices());
-        page.getIndices().stream()
-                .map(IndexEntity::getLemma)
-                .forEach(lemma -> {
-                    lemma.setFrequency(lemma.getFrequency() - 1);
-                    if (lemma.getFrequency() == 0) {
-                        deleteLemmasId.add(lemma.getId());
-                        log.debug("Лемма с ID {} имеет частоту 0 и будет удалена.", lemma.getId());
-                    } else {
-                        save(lemma);
-                        log.debug("Обновлена частота леммы с ID {}: {}", lemma.getId(), lemma.getFrequency());
-                    }
-                });
-
-        if (!deleteLemmasId.isEmpty()) {
-            deleteAllById(deleteLemmasId);
-        }
+    public void deleteByPage(PageEntity page, boolean deleteUnusedLemmas) {
+        indexBatchRepository.deleteByPage(page.getId(), deleteUnusedLemmas);
+        log.debug("Удалены индексы страницы ID {}.", page.getId());
     }
 
     @Override
     public void deleteAllById(List<Long> lemmasId) {
         repository.deleteAllById(lemmasId);
-        log.info("Удалены леммы с ID: {}", lemmasId);
+        log.debug("Удалены леммы с ID: {}", lemmasId);
     }
 }
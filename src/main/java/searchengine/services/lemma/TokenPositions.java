@@ -0,0 +1,32 @@
+package searchengine.services.lemma;
+
+import java.util.Arrays;
+
+// Порядковые номера слов, в которых встретилась лемма, по возрастанию, и смещения начала этих слов в тексте
+public class TokenPositions {
+
+    private int[] positions = new int[4];
+    private int[] offsets = new int[4];
+    private int size;
+
+    public void add(int position, int offset) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        positions[size] = position;
+        offsets[size++] = offset;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(positions, size);
+    }
+
+    public int[] offsetsToArray() {
+        return Arrays.copyOf(offsets, size);
+    }
+}
@@ -0,0 +1,51 @@
+package searchengine.services.lemma;
+
+import java.util.Arrays;
+
+// Разбиение текста на слова за один проход без промежуточных копий текста.
+// Словом считается последовательность русских или английских букв, приведённых к нижнему регистру.
+public final class WordTokenizer {
+
+    private static final int INITIAL_WORD_LENGTH = 32;
+
+    private WordTokenizer() {
+    }
+
+    @FunctionalInterface
+    public interface TokenVisitor {
+
+        // start и end - смещения слова в исходном тексте, position - порядковый номер слова
+        void visit(String word, int start, int end, int position);
+    }
+
+    public static int tokenize(CharSequence text, TokenVisitor visitor) {
+        char[] word = new char[INITIAL_WORD_LENGTH];
+        int length = 0;
+        int start = 0;
+        int position = 0;
+
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (isWordChar(c)) {
+                if (length == 0) {
+                    start = i;
+                }
+                if (length == word.length) {
+                    word = Arrays.copyOf(word, length * 2);
+                }
+                word[length++] = c;
+            } else if (length > 0) {
+                visitor.visit(new String(word, 0, length), start, i, position++);
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            visitor.visit(new String(word, 0, length), start, text.length(), position++);
+        }
+        return position;
+    }
+
+    public static boolean isWordChar(char c) {
+        return (c >= 'а' && c <= 'я') || c == 'ё' || (c >= 'a' && c <= 'z');
+    }
+}
@@ -1,11 +1,13 @@
 package searchengine.services.page;
 
+import searchengine.dto.indexing.PageVersion;
 import searchengine.entity.PageEntity;
 import searchengine.entity.SiteEntity;
 import searchengine.exception.IndexException;
 import searchengine.services.Service;
 
 import java.net.MalformedURLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -13,9 +15,14 @@ public interface PageService extends Service<PageEntity> {
 
     boolean existsBySiteAndPath(SiteEntity site, String path);
     List<PageEntity> saveAll(Set<PageEntity> pages);
+    List<PageEntity> getAllById(Collection<Long> ids);
     PageEntity getBySiteAndPath(SiteEntity site, String path);
     PageEntity getPageByUrl(String url) throws MalformedURLException, IndexException;
     void index(String url) throws IndexException;
     void index(PageEntity page) throws IndexException;
     long count();
+    List<PageVersion> getVersions(SiteEntity site);
+    void deleteWithIndex(Long id);
+    List<PageVersion> getDuplicates(SiteEntity site);
+    void updateCanonicalPath(PageEntity page, String canonicalPath);
 }
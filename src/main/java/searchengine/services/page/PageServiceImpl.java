@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import searchengine.config.context.ParserContext;
 import searchengine.config.context.StorageContext;
+import searchengine.dto.indexing.PageVersion;
 import searchengine.entity.PageEntity;
 import searchengine.entity.SiteEntity;
 import searchengine.exception.IndexException;
@@ -11,11 +12,14 @@ import searchengine.repository.PageRepository;
 import searchengine.services.AbstractService;
 import searchengine.services.indexing.page.IndexingPageService;
 import searchengine.services.indexing.parser.Parser;
+import searchengine.services.indexing.progress.IndexingProgress;
+import searchengine.services.indexing.progress.IndexingProgressRegistry;
 import searchengine.services.indexing.storage.Storage;
 import searchengine.services.site.SiteService;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -26,13 +30,23 @@ public class PageServiceImpl extends AbstractService<PageEntity, PageRepository>
     private final SiteService siteService;
     private final IndexingPageService indexingPageService;
     private final ParserContext parserContext;
+    private final IndexingProgressRegistry progressRegistry;
 
     public PageServiceImpl(PageRepository repository, SiteService siteService,
-                           IndexingPageService indexingPageService, ParserContext parserContext) {
+                           IndexingPageService indexingPageService, ParserContext parserContext,
+                           IndexingProgressRegistry progressRegistry) {
         super(repository);
         this.siteService = siteService;
         this.indexingPageService = indexingPageService;
         this.parserContext = parserContext;
+        this.progressRegistry = progressRegistry;
+    }
+
+    @Override
+    public PageEntity save(PageEntity page) {
+        PageEntity savedPage = super.save(page);
+        countPersisted(savedPage);
+        return savedPage;
     }
 
     @Override
@@ -49,10 +63,16 @@ public class PageServiceImpl extends AbstractService<PageEntity, PageRepository>
     @Override
     public List<PageEntity> saveAll(Set<PageEntity> pages) {
         List<PageEntity> savedPages = repository.saveAll(pages);
+        savedPages.forEach(this::countPersisted);
         log.info("Сохранено {} страниц.", savedPages.size());
         return savedPages;
     }
 
+    @Override
+    public List<PageEntity> getAllById(Collection<Long> ids) {
+        return repository.findAllById(ids);
+    }
+
     @Override
     public PageEntity getBySiteAndPath(SiteEntity site, String path) {
         return repository.findBySiteIdAndPath(site.getId(), path).orElse(null);
@@ -82,7 +102,7 @@ public class PageServiceImpl extends AbstractService<PageEntity, PageRepository>
     @Override
     public void index(PageEntity page) throws IndexException {
         try {
-            log.info("Начато индексирование страницы с ID {}.", page.getId());
+            log.debug("Начато индексирование страницы с ID {}.", page.getId());
             indexingPageService.index(page);
         } catch (IndexException e) {
             log.error("Не удалось проиндексировать страницу с ID {}: {}", page.getId(), e.getMessage(), e);
@@ -90,6 +110,31 @@ public class PageServiceImpl extends AbstractService<PageEntity, PageRepository>
         }
     }
 
+    @Override
+    public List<PageVersion> getVersions(SiteEntity site) {
+        return repository.findVersionsBySiteId(site.getId());
+    }
+
+    @Override
+    public List<PageVersion> getDuplicates(SiteEntity site) {
+        return repository.findDuplicateVersionsBySiteId(site.getId());
+    }
+
+    @Override
+    public void updateCanonicalPath(PageEntity page, String canonicalPath) {
+        page.setCanonicalPath(canonicalPath);
+        repository.updateCanonicalPath(page.getId(), canonicalPath);
+    }
+
+    @Override
+    public void deleteWithIndex(Long id) {
+        PageEntity page = get(id);
+        if (page != null) {
+            indexingPageService.removePage(page);
+            log.debug("Удалена страница с ID {}.", id);
+        }
+    }
+
     @Override
     public long count() {
         long count = repository.count();
@@ -135,4 +180,11 @@ public class PageServiceImpl extends AbstractService<PageEntity, PageRepository>
         return new IndexException("Данная страница находится за пределами сайтов, " +
                 "указанных в конфигурационном файле");
     }
+
+    private void countPersisted(PageEntity page) {
+        IndexingProgress progress = progressRegistry.get(page.getSite());
+        if (progress != null) {
+            progress.pagePersisted();
+        }
+    }
 }
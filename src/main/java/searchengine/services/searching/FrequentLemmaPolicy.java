@@ -0,0 +1,94 @@
+package searchengine.services.searching;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.entity.LemmaEntity;
+import searchengine.exception.SearchingException;
+import searchengine.services.indexing.page.LemmaFrequencyBuffer;
+import searchengine.services.indexing.page.LemmaFrequencyBuffers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+// Отбор лемм запроса по доле страниц сайта, на которых они встречаются.
+// Лемма, встречающаяся более чем на max-page-percent процентах страниц, считается частой:
+// 'drop' - не учитывается совсем, 'defer' - не отбирает страницы, но добавляет свой ранг найденным страницам.
+// Если частыми оказались все леммы, остаётся самая редкая из них.
+// Во время полной индексации сайта к частоте из таблицы lemmas добавляются ещё не сброшенные счётчики буфера частот.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FrequentLemmaPolicy {
+
+    private final SitePageCounts sitePageCounts;
+    private final LemmaFrequencyBuffers lemmaFrequencyBuffers;
+
+    @Value("${searching-settings.frequent-lemmas.policy}")
+    private String policy;
+
+    @Value("${searching-settings.frequent-lemmas.max-page-percent}")
+    private double maxPagePercent;
+
+    @Value("${searching-settings.frequent-lemmas.min-site-pages}")
+    private long minSitePages;
+
+    // Леммы сайта по возрастанию частоты: отбирающие страницы, отложенные и отброшенные
+    public record Selection(List<LemmaEntity> active, List<LemmaEntity> deferred, Set<String> dropped) {
+
+        public boolean isEmpty() {
+            return active.isEmpty();
+        }
+    }
+
+    public Selection select(Long siteId, List<LemmaEntity> siteLemmas) {
+        ToLongFunction<LemmaEntity> frequency = getFrequency(siteId);
+        List<LemmaEntity> lemmas = siteLemmas.stream()
+                .sorted(Comparator.comparingLong(frequency))
+                .toList();
+        long pages = sitePageCounts.getPageCount(siteId);
+        if (lemmas.isEmpty() || pages < minSitePages) {
+            return new Selection(lemmas, List.of(), Set.of());
+        }
+
+        List<LemmaEntity> active = new ArrayList<>();
+        List<LemmaEntity> frequent = new ArrayList<>();
+        for (LemmaEntity lemma : lemmas) {
+            double percent = 100.0 * frequency.applyAsLong(lemma) / pages;
+            (percent > maxPagePercent ? frequent : active).add(lemma);
+        }
+        if (active.isEmpty()) {
+            active.add(frequent.remove(0));
+        }
+        if (!frequent.isEmpty()) {
+            log.debug("Частые леммы сайта {} ({} страниц): {}", siteId, pages,
+                    frequent.stream().map(LemmaEntity::getLemma).toList());
+        }
+
+        switch (policy) {
+            case "drop":
+                Set<String> dropped = new HashSet<>();
+                frequent.forEach(lemma -> dropped.add(lemma.getLemma()));
+                return new Selection(active, List.of(), dropped);
+            case "defer":
+                return new Selection(active, frequent, Set.of());
+            default:
+                String errorMsg = "Не указана политика для частых лемм.";
+                log.error("Ошибка выбора политики частых лемм: {}", errorMsg);
+                throw new SearchingException(errorMsg);
+        }
+    }
+
+    private ToLongFunction<LemmaEntity> getFrequency(Long siteId) {
+        LemmaFrequencyBuffer buffer = lemmaFrequencyBuffers.get(siteId);
+        if (buffer == null) {
+            return LemmaEntity::getFrequency;
+        }
+        return lemma -> lemma.getFrequency() + buffer.getPendingFrequency(lemma.getLemma());
+    }
+}
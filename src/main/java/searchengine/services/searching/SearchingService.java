@@ -1,16 +1,12 @@
 package searchengine.services.searching;
 
-import searchengine.dto.searching.SearchingData;
+import searchengine.dto.searching.SearchCacheStatistics;
 import searchengine.dto.searching.SearchingQuery;
-import searchengine.entity.SiteEntity;
-
-import java.util.List;
+import searchengine.dto.searching.SearchingResult;
 
 public interface SearchingService {
 
-    List<SearchingData> getResult(String query, SiteEntity site);
-
-    List<SearchingData> getResult(String query, List<SiteEntity> sites);
+    SearchingResult getResult(SearchingQuery searchingQuery);
 
-    List<SearchingData> getResult(SearchingQuery searchingQuery);
+    SearchCacheStatistics getCacheStatistics();
 }
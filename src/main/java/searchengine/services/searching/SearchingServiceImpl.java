@@ -1,168 +1,421 @@
 package searchengine.services.searching;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import searchengine.config.context.LemmaContext;
+import searchengine.config.context.SearchCacheContext;
+import searchengine.config.context.SearchEngineContext;
+import searchengine.dto.searching.SearchCacheStatistics;
 import searchengine.dto.searching.SearchingData;
-import searchengine.entity.IndexEntity;
+import searchengine.dto.searching.SearchingResult;
 import searchengine.entity.LemmaEntity;
 import searchengine.entity.PageEntity;
 import searchengine.dto.searching.SearchingQuery;
 import searchengine.entity.SiteEntity;
 import searchengine.exception.SearchingException;
+import searchengine.services.index.IndexService;
 import searchengine.services.lemma.LemmaSearcher;
 import searchengine.services.lemma.LemmaService;
+import searchengine.services.page.PageService;
+import searchengine.services.searching.cache.IndexGeneration;
+import searchengine.services.searching.cache.SearchCache;
+import searchengine.services.searching.cache.SearchCacheKey;
+import searchengine.services.searching.cache.SearchRanking;
+import searchengine.services.searching.engine.PositionCodec;
+import searchengine.services.searching.engine.PostingList;
+import searchengine.services.searching.engine.RankedPage;
+import searchengine.services.searching.engine.TopKQueue;
+import searchengine.services.searching.query.MaxScoreEvaluator;
+import searchengine.services.searching.query.QueryEvaluator;
+import searchengine.services.searching.query.QueryNode;
+import searchengine.services.searching.query.QueryParser;
+import searchengine.services.searching.query.ScoredPages;
 import searchengine.services.site.SiteService;
 import searchengine.services.snippet.SnippetService;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchingServiceImpl implements SearchingService {
 
+    private static final int MAX_SNIPPETS = 3;
+    private static final String SNIPPET_DELIMITER = " ... ";
+
     private final LemmaService lemmaService;
     private final SnippetService snippetService;
     private final SiteService siteService;
-    private final LemmaSearcher lemmaSearcher = LemmaContext.getLemmaSearcher();
+    private final PageService pageService;
+    private final IndexService indexService;
+    private final SearchEngineContext searchEngineContext;
+    private final LemmaSearcher lemmaSearcher;
+    private final QueryParser queryParser;
+    private final SearchCacheContext searchCacheContext;
+    private final IndexGeneration indexGeneration;
+    private final FrequentLemmaPolicy frequentLemmaPolicy;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${searching-settings.limit-lemma-frequency}")
-    private int limitLemmaFrequency;
+    @Value("${searching-settings.pruning}")
+    private String pruning;
 
-    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    @Value("${searching-settings.cache.depth}")
+    private int cacheDepth;
 
-    @Override
-    public List<SearchingData> getResult(SearchingQuery searchingQuery) throws SearchingException {
-        log.info("Поиск по запросу '{}'", searchingQuery.getQuery());
-        if (searchingQuery.getSite() == null) {
-            return getResult(searchingQuery.getQuery(), siteService.getAll());
-        } else {
-            return getResult(searchingQuery.getQuery(), searchingQuery.getSite());
-        }
-    }
+    @Value("${searching-settings.max-limit}")
+    private int maxLimit;
+
+    @Value("${searching-settings.max-depth}")
+    private int maxDepth;
+
+    @Value("${searching-settings.threads}")
+    private int threads;
+
+    // Ограниченный пул для параллельной оценки сайтов
+    private ExecutorService searchExecutor;
 
     @Override
-    public List<SearchingData> getResult(String query, SiteEntity site) throws SearchingException {
+    public SearchingResult getResult(SearchingQuery searchingQuery) throws SearchingException {
+        String query = searchingQuery.getQuery();
         if (query == null || query.trim().isEmpty()) {
             throw new SearchingException("Задан пустой поисковый запрос.");
         }
+        log.info("Поиск по запросу '{}'", query);
+
+        List<SiteEntity> sites = searchingQuery.getSite() == null
+                ? siteService.getAll()
+                : List.of(searchingQuery.getSite());
+        QueryNode queryTree = timed("parse", () -> queryParser.parse(query));
+
+        if (searchingQuery.getOffset() < 0 || searchingQuery.getLimit() < 0) {
+            throw new SearchingException("Смещение и лимит не могут быть отрицательными.");
+        }
+        int offset = searchingQuery.getOffset();
+        int limit = Math.min(searchingQuery.getLimit(), maxLimit);
+        SearchCache searchCache = searchCacheContext.getSearchCache();
+        SearchCacheKey key = new SearchCacheKey(queryTree,
+                searchingQuery.getSite() == null ? null : searchingQuery.getSite().getId(),
+                indexGeneration.get());
 
-        List<LemmaEntity> lemmas = filterLemmasForSite(getLemmasFromQuery(query), site);
+        // Следующие страницы выдачи берутся из сохранённого ранжирования без повторного подсчёта
+        SearchRanking ranking = timed("cache", () -> searchCache.get(key));
+        int depth = getDepth(offset, limit);
+        if (ranking == null || !ranking.covers(depth)) {
+            ranking = rank(queryTree, sites, Math.max(depth, Math.min(cacheDepth, maxDepth)));
+            searchCache.put(key, ranking);
+        }
 
-        if (lemmas.isEmpty()) {
-            log.warn("По запросу '{}' не найдено лемм для сайта '{}'.", query, site.getUrl());
+        if (ranking.getCount() == 0) {
+            log.warn("По запросу '{}' не найдено результатов для указанных сайтов.", query);
             throw new SearchingException("По данному запросу ничего не найдено.");
         }
 
-        return getResult(lemmas, site);
+        List<RankedPage> pagesToShow = ranking.getPages().stream()
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        Map<Long, List<String>> siteLemmas = ranking.getSiteLemmas();
+        return SearchingResult.builder()
+                .result(true)
+                .count(ranking.getCount())
+                .data(timed("results", () -> getSearchingData(pagesToShow, sites, siteLemmas)))
+                .build();
     }
 
     @Override
-    public List<SearchingData> getResult(String query, List<SiteEntity> sites) throws SearchingException {
-        List<SearchingData> searchingDataList = sites.stream()
-                .flatMap(site -> {
-                    try {
-                        return getResult(query, site).stream();
-                    } catch (SearchingException e) {
-                        log.error("Ошибка при поиске по запросу '{}' для сайта '{}': {}", query, site.getUrl(), e.getMessage());
-                        return Stream.empty();
-                    }
-                })
-                .collect(Collectors.toList());
+    public SearchCacheStatistics getCacheStatistics() {
+        return searchCacheContext.getSearchCache().getStatistics();
+    }
 
-        if (searchingDataList.isEmpty()) {
-            log.warn("По запросу '{}' не найдено результатов для указанных сайтов.", query);
-            throw new SearchingException("По данному запросу ничего не найдено.");
+    // Сколько лучших страниц нужно ранжировать для выдачи: offset + limit без переполнения и не больше max-depth,
+    // более дальние страницы выдачи пусты
+    private int getDepth(int offset, int limit) {
+        long depth = (long) offset + limit;
+        return (int) Math.min(depth, maxDepth);
+    }
+
+    // План запроса строится один раз: леммы всех сайтов загружаются одним запросом, сайты оцениваются параллельно
+    private SearchRanking rank(QueryNode queryTree, List<SiteEntity> sites, int depth) {
+        Map<Long, List<LemmaEntity>> lemmasBySite = timed("lemmas", () -> getLemmasFromQuery(queryTree).stream()
+                .collect(Collectors.groupingBy(lemma -> lemma.getSite().getId())));
+        List<SiteScores> siteScores = timed("score", () -> scoreSites(queryTree, sites, lemmasBySite, depth));
+        return timed("merge", () -> merge(siteScores, depth));
+    }
+
+    private SearchRanking merge(List<SiteScores> siteScores, int depth) {
+
+        // Единая шкала релевантности: ранги всех сайтов делятся на наибольший ранг среди всех сайтов
+        float maxScore = (float) siteScores.stream()
+                .mapToDouble(scores -> scores.pages().getMaxScore())
+                .max()
+                .orElse(0);
+        float scale = maxScore > 0 ? maxScore : 1f;
+
+        TopKQueue<RankedPage> topPages = new TopKQueue<>(depth, RankedPage.BY_RELEVANCE);
+        Map<Long, List<String>> siteLemmas = new HashMap<>();
+        int count = 0;
+        for (SiteScores scores : siteScores) {
+            ScoredPages pages = scores.pages();
+            for (int i = 0; i < pages.size(); i++) {
+                topPages.offer(new RankedPage(pages.getPageId(i), scores.site().getId(), pages.getScore(i) / scale));
+            }
+            siteLemmas.put(scores.site().getId(), scores.lemmas());
+            count += pages.getTotal();
         }
-        return searchingDataList;
+        return new SearchRanking(topPages.toSortedList(), count, siteLemmas);
     }
 
-    @Transactional
-    public List<SearchingData> getResult(List<LemmaEntity> lemmas, SiteEntity site) {
-        List<LemmaEntity> lemmaEntities = filterLemmasForSite(lemmas, site);
-        Map<PageEntity, Float> pagesWithRank = getPagesWithRank(lemmaEntities);
-        float maxRank = getMaxRank(pagesWithRank.values());
+    private List<SiteScores> scoreSites(QueryNode queryTree, List<SiteEntity> sites,
+                                        Map<Long, List<LemmaEntity>> lemmasBySite, int depth) {
+        List<Callable<SiteScores>> tasks = sites.stream()
+                .<Callable<SiteScores>>map(site -> () -> scoreSite(queryTree, site,
+                        lemmasBySite.getOrDefault(site.getId(), List.of()), depth))
+                .toList();
 
-        List<SearchingData> result = pagesWithRank.entrySet().parallelStream()
-                .flatMap(entry -> getSearchingData(entry.getKey(), lemmaEntities, entry.getValue() / maxRank).stream())
+        List<SiteScores> siteScores = new ArrayList<>();
+        try {
+            if (tasks.size() == 1) {
+                siteScores.add(tasks.get(0).call());
+            } else {
+                for (Future<SiteScores> future : searchExecutor.invokeAll(tasks)) {
+                    siteScores.add(future.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchingException("Поиск прерван.");
+        } catch (Exception e) {
+            log.error("Ошибка при поиске по сайтам: {}", e.getMessage(), e);
+            throw new SearchingException("Ошибка при выполнении поиска.");
+        }
+        return siteScores.stream()
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+    }
 
-        log.info("Найдено {} результатов для сайта '{}'.", result.size(), site.getUrl());
-        return result;
+    // Подсчёт релевантности без загрузки страниц, null - по сайту ничего не найдено
+    private SiteScores scoreSite(QueryNode queryTree, SiteEntity site, List<LemmaEntity> siteLemmas, int depth) {
+        FrequentLemmaPolicy.Selection selection = frequentLemmaPolicy.select(site.getId(), siteLemmas);
+        if (selection.isEmpty()) {
+            log.warn("По запросу не найдено лемм для сайта '{}'.", site.getUrl());
+            return null;
+        }
+        ScoredPages pages = getScoredPages(queryTree, selection, depth);
+        if (pages == null) {
+            return null;
+        }
+        log.debug("Найдено {} результатов для сайта '{}'.", pages.getTotal(), site.getUrl());
+        return new SiteScores(site, pages, selection.active().stream()
+                .map(LemmaEntity::getLemma)
+                .collect(Collectors.toList()));
     }
 
-    private List<SearchingData> getSearchingData(PageEntity page, List<LemmaEntity> lemmas, float relevance) {
-        List<String> snippets = getSnippets(page, lemmas);
-        return snippets.parallelStream()
-                .map(snippet -> getSearchingData(page, snippet, relevance))
+    // Частые леммы сайта исключаются из отбора страниц, остальные вычисляются по дереву запроса
+    private ScoredPages getScoredPages(QueryNode queryTree, FrequentLemmaPolicy.Selection selection, int depth) {
+        Map<Long, String> lemmaById = new HashMap<>();
+        selection.active().forEach(lemma -> lemmaById.put(lemma.getId(), lemma.getLemma()));
+        selection.deferred().forEach(lemma -> lemmaById.put(lemma.getId(), lemma.getLemma()));
+        Set<String> deferred = selection.deferred().stream()
+                .map(LemmaEntity::getLemma)
+                .collect(Collectors.toSet());
+
+        Map<String, PostingList> postings = new HashMap<>();
+        searchEngineContext.getSearchEngine()
+                .getPostings(lemmaById.keySet(), queryTree.hasPhrases())
+                .forEach((lemmaId, list) -> postings.put(lemmaById.get(lemmaId), list));
+        return evaluate(queryTree, postings, selection.dropped(), deferred, depth);
+    }
+
+    // Для объединения слов ранг считается только у страниц, способных попасть в лучшие depth
+    // Отложенные леммы меняют ранги уже найденных страниц, поэтому с ними выполняется полный подсчёт
+    private ScoredPages evaluate(QueryNode queryTree, Map<String, PostingList> postings, Set<String> ignored,
+                                 Set<String> deferred, int depth) {
+        QueryEvaluator exhaustive = new QueryEvaluator(postings, ignored, deferred);
+        if (!deferred.isEmpty() || !MaxScoreEvaluator.supports(queryTree)) {
+            return exhaustive.evaluate(queryTree);
+        }
+        MaxScoreEvaluator maxScore = new MaxScoreEvaluator(postings, ignored);
+        switch (pruning) {
+            case "maxscore":
+                return maxScore.evaluate(queryTree, depth);
+            case "exhaustive":
+                return exhaustive.evaluate(queryTree);
+            case "compare":
+                return compare(queryTree, exhaustive, maxScore, depth);
+            default:
+                String errorMsg = "Не указан способ отбора страниц.";
+                log.error("Ошибка выбора способа отбора страниц: {}", errorMsg);
+                throw new SearchingException(errorMsg);
+        }
+    }
+
+    // Проверка отсечения: оба способа выполняются, расхождения и время пишутся в лог, в выдачу идёт полный подсчёт
+    private ScoredPages compare(QueryNode queryTree, QueryEvaluator exhaustive, MaxScoreEvaluator maxScore, int depth) {
+        long start = System.nanoTime();
+        ScoredPages exhaustivePages = exhaustive.evaluate(queryTree);
+        long exhaustiveTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        ScoredPages maxScorePages = maxScore.evaluate(queryTree, depth);
+        long maxScoreTime = System.nanoTime() - start;
+
+        if (exhaustivePages == null || maxScorePages == null) {
+            return exhaustivePages;
+        }
+        boolean same = exhaustivePages.getTotal() == maxScorePages.getTotal()
+                && getTopPages(exhaustivePages, depth).equals(getTopPages(maxScorePages, depth));
+        if (!same) {
+            log.warn("Результаты отсечения MaxScore не совпадают с полным подсчётом для запроса {}", queryTree);
+        }
+        log.info("Полный подсчёт: {} мкс, MaxScore: {} мкс, страниц: {}",
+                exhaustiveTime / 1000, maxScoreTime / 1000, exhaustivePages.getTotal());
+        return exhaustivePages;
+    }
+
+    private List<RankedPage> getTopPages(ScoredPages pages, int depth) {
+        TopKQueue<RankedPage> topPages = new TopKQueue<>(depth, RankedPage.BY_RELEVANCE);
+        for (int i = 0; i < pages.size(); i++) {
+            topPages.offer(new RankedPage(pages.getPageId(i), 0, pages.getScore(i)));
+        }
+        return topPages.toSortedList();
+    }
+
+    private List<SearchingData> getSearchingData(List<RankedPage> rankedPages, List<SiteEntity> sites,
+                                                 Map<Long, List<String>> siteLemmas) {
+        Map<Long, SiteEntity> sitesById = sites.stream()
+                .collect(Collectors.toMap(SiteEntity::getId, Function.identity()));
+        Map<Long, PageEntity> pagesById = pageService.getAllById(rankedPages.stream()
+                        .map(RankedPage::getPageId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(PageEntity::getId, Function.identity()));
+        Map<Long, Map<String, byte[]>> offsetsByPage = getOffsets(pagesById.keySet(), siteLemmas);
+
+        return rankedPages.stream()
+                .filter(rankedPage -> pagesById.containsKey(rankedPage.getPageId()))
+                .map(rankedPage -> getSearchingData(
+                        pagesById.get(rankedPage.getPageId()),
+                        sitesById.get(rankedPage.getSiteId()),
+                        siteLemmas.get(rankedPage.getSiteId()),
+                        offsetsByPage.get(rankedPage.getPageId()),
+                        rankedPage.getRelevance()))
                 .collect(Collectors.toList());
     }
 
-    private SearchingData getSearchingData(PageEntity page, String snippet, float relevance) {
-        SiteEntity site = page.getSite();
+    // Смещения слов запроса для всех страниц выдачи загружаются одним запросом
+    private Map<Long, Map<String, byte[]>> getOffsets(Collection<Long> pageIds, Map<Long, List<String>> siteLemmas) {
+        Set<String> lemmas = siteLemmas.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet());
+        Map<Long, Map<String, byte[]>> offsetsByPage = new HashMap<>();
+        indexService.getOffsets(pageIds, lemmas).forEach(offsets -> offsetsByPage
+                .computeIfAbsent(offsets.getPageId(), pageId -> new HashMap<>())
+                .put(offsets.getLemma(), offsets.getOffsets()));
+        return offsetsByPage;
+    }
+
+    private SearchingData getSearchingData(PageEntity page, SiteEntity site, List<String> lemmas,
+                                           Map<String, byte[]> pageOffsets, float relevance) {
         return SearchingData.builder()
                 .site(site.getUrl())
                 .siteName(site.getName())
                 .uri(page.getPath())
                 .title(getTitle(page))
-                .snippet(snippet)
+                .snippet(getSnippet(page, lemmas, pageOffsets))
                 .relevance(relevance)
                 .build();
     }
 
-    private List<String> getSnippets(PageEntity page, List<LemmaEntity> lemmaEntities) {
-        List<String> lemmas = lemmaEntities.stream()
-                .map(LemmaEntity::getLemma)
-                .collect(Collectors.toList());
-        String text = lemmaSearcher.htmlClear(page.getContent());
-        return snippetService.getSnippets(text, lemmas);
+    private String getSnippet(PageEntity page, List<String> lemmas, Map<String, byte[]> pageOffsets) {
+        int[] offsets = mergeOffsets(lemmas, pageOffsets);
+        List<String> snippets = offsets != null && page.getText() != null
+                ? snippetService.getSnippets(page.getText(), offsets)
+                : snippetService.getSnippets(getText(page), lemmas);
+        return String.join(SNIPPET_DELIMITER, snippets.subList(0, Math.min(MAX_SNIPPETS, snippets.size())));
     }
 
-    @Transactional
-    private Map<PageEntity, Float> getPagesWithRank(List<LemmaEntity> lemmas) {
-        return lemmas.parallelStream()
-                .flatMap(lemma -> lemma.getIndices().stream())
-                .collect(Collectors.toConcurrentMap(
-                        IndexEntity::getPage,
-                        IndexEntity::getRank,
-                        Float::sum
-                ));
+    // Смещения слов запроса на странице по возрастанию, null - страница проиндексирована до появления смещений
+    private int[] mergeOffsets(List<String> lemmas, Map<String, byte[]> pageOffsets) {
+        if (pageOffsets == null) {
+            return null;
+        }
+        List<int[]> parts = new ArrayList<>();
+        int size = 0;
+        for (String lemma : lemmas) {
+            if (!pageOffsets.containsKey(lemma)) {
+                continue;
+            }
+            byte[] encoded = pageOffsets.get(lemma);
+            if (encoded == null) {
+                return null;
+            }
+            int[] decoded = PositionCodec.decode(encoded);
+            parts.add(decoded);
+            size += decoded.length;
+        }
+
+        int[] offsets = new int[size];
+        int index = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, offsets, index, part.length);
+            index += part.length;
+        }
+        Arrays.sort(offsets);
+        return offsets;
     }
 
-    private float getMaxRank(Collection<Float> ranks) {
-        return ranks.parallelStream()
-                .max(Float::compareTo)
-                .orElse(1f);
+    private List<LemmaEntity> getLemmasFromQuery(QueryNode queryTree) {
+        if (queryTree == null) {
+            return List.of();
+        }
+        Set<String> lemmas = new HashSet<>();
+        queryTree.collectLemmas(lemmas);
+        return lemmaService.getByLemmas(new ArrayList<>(lemmas));
     }
 
-    private List<LemmaEntity> getLemmasFromQuery(String query) {
-        Map<String, Integer> lemmas = lemmaSearcher.getLemmas(query);
-        return lemmaService.getByLemmas(new ArrayList<>(lemmas.keySet()));
+    // Время этапа поиска: разбор запроса, кэш, загрузка лемм, оценка сайтов, слияние, формирование выдачи
+    private <T> T timed(String phase, Supplier<T> action) {
+        return meterRegistry.timer("search.phase", "phase", phase).record(action);
     }
 
-    private List<LemmaEntity> filterLemmasForSite(List<LemmaEntity> lemmas, SiteEntity site) {
-        return lemmas.parallelStream()
-                .filter(lemma -> lemma.getFrequency() < limitLemmaFrequency)
-                .filter(lemma -> lemma.getSite().getId().equals(site.getId()))
-                .sorted(Comparator.comparing(LemmaEntity::getFrequency))
-                .collect(Collectors.toList());
+    @PostConstruct
+    private void initialize() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        searchExecutor = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "search-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorServiceMetrics.monitor(meterRegistry, searchExecutor, "search");
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        searchExecutor.shutdownNow();
+    }
+
+    private record SiteScores(SiteEntity site, ScoredPages pages, List<String> lemmas) {
     }
 
     private String getTitle(PageEntity page) {
-        Document document = Jsoup.parse(page.getContent());
-        return Optional.of(document.title())
-                .filter(title -> !title.isEmpty())
-                .orElseGet(() -> Optional.ofNullable(document.selectFirst("h1"))
-                        .map(Element::text)
-                        .orElse(""));
+        return page.getTitle() == null ? "" : page.getTitle();
+    }
+
+    // Страницы, проиндексированные до появления столбца text, очищаются от HTML при выдаче
+    private String getText(PageEntity page) {
+        return page.getText() != null ? page.getText() : lemmaSearcher.htmlClear(page.getContent());
     }
 }
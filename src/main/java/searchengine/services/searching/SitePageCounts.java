@@ -0,0 +1,43 @@
+package searchengine.services.searching;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.dto.statistics.SiteCount;
+import searchengine.repository.PageRepository;
+import searchengine.services.searching.cache.IndexGeneration;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Число проиндексированных страниц по сайтам, пересчитывается одним запросом при изменении поколения индекса
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SitePageCounts {
+
+    private final PageRepository pageRepository;
+    private final IndexGeneration indexGeneration;
+
+    private volatile Counts counts = new Counts(-1, Map.of());
+
+    public long getPageCount(Long siteId) {
+        return getCounts().getOrDefault(siteId, 0L);
+    }
+
+    private Map<Long, Long> getCounts() {
+        Counts current = counts;
+        long generation = indexGeneration.get();
+        if (current.generation() != generation) {
+            Map<Long, Long> pages = pageRepository.countIndexedPagesBySite().stream()
+                    .collect(Collectors.toMap(SiteCount::getSiteId, SiteCount::getCount));
+            log.debug("Пересчитано число страниц сайтов: {}", pages);
+            current = new Counts(generation, pages);
+            counts = current;
+        }
+        return current.pages();
+    }
+
+    private record Counts(long generation, Map<Long, Long> pages) {
+    }
+}
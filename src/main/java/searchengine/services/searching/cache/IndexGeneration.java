@@ -0,0 +1,20 @@
+package searchengine.services.searching.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Поколение индекса: увеличивается при каждом изменении индекса, результаты прошлых поколений не используются
+@Component
+public class IndexGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public long get() {
+        return generation.get();
+    }
+
+    public void increment() {
+        generation.incrementAndGet();
+    }
+}
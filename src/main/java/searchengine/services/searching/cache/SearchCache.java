@@ -0,0 +1,14 @@
+package searchengine.services.searching.cache;
+
+import searchengine.dto.searching.SearchCacheStatistics;
+
+public interface SearchCache {
+
+    SearchRanking get(SearchCacheKey key);
+
+    void put(SearchCacheKey key, SearchRanking ranking);
+
+    void clear();
+
+    SearchCacheStatistics getStatistics();
+}
@@ -0,0 +1,7 @@
+package searchengine.services.searching.cache;
+
+import searchengine.services.searching.query.QueryNode;
+
+// Нормализованное дерево запроса, сайт (null - все сайты) и поколение индекса, для которого посчитан результат
+public record SearchCacheKey(QueryNode query, Long siteId, long generation) {
+}
@@ -0,0 +1,74 @@
+package searchengine.services.searching.cache;
+
+import searchengine.dto.searching.SearchCacheStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Кэш на LinkedHashMap: при accessOrder вытесняется давно не запрошенный результат (LRU),
+// иначе - самый старый по времени добавления (FIFO)
+public class SearchCacheLinked implements SearchCache {
+
+    private final String policy;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<SearchCacheKey, SearchRanking> rankings;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public SearchCacheLinked(String policy, boolean accessOrder, int maxSize, long ttlMillis) {
+        this.policy = policy;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.rankings = new LinkedHashMap<>(16, 0.75f, accessOrder) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchCacheKey, SearchRanking> eldest) {
+                boolean evict = size() > SearchCacheLinked.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    @Override
+    public synchronized SearchRanking get(SearchCacheKey key) {
+        SearchRanking ranking = rankings.get(key);
+        if (ranking != null && isExpired(ranking)) {
+            rankings.remove(key);
+            expirations.increment();
+            ranking = null;
+        }
+        if (ranking == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return ranking;
+    }
+
+    @Override
+    public synchronized void put(SearchCacheKey key, SearchRanking ranking) {
+        rankings.put(key, ranking);
+    }
+
+    @Override
+    public synchronized void clear() {
+        rankings.clear();
+    }
+
+    @Override
+    public synchronized SearchCacheStatistics getStatistics() {
+        return new SearchCacheStatistics(policy, rankings.size(), maxSize, ttlMillis / 1000,
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private boolean isExpired(SearchRanking ranking) {
+        return ttlMillis > 0 && System.currentTimeMillis() - ranking.getCreatedAt() > ttlMillis;
+    }
+}
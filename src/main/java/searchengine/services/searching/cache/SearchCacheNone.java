@@ -0,0 +1,30 @@
+package searchengine.services.searching.cache;
+
+import searchengine.dto.searching.SearchCacheStatistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Кэш отключён: каждый запрос считается заново
+public class SearchCacheNone implements SearchCache {
+
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public SearchRanking get(SearchCacheKey key) {
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    public void put(SearchCacheKey key, SearchRanking ranking) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public SearchCacheStatistics getStatistics() {
+        return new SearchCacheStatistics("none", 0, 0, 0, 0, misses.sum(), 0, 0);
+    }
+}
@@ -0,0 +1,28 @@
+package searchengine.services.searching.cache;
+
+import lombok.Getter;
+import searchengine.services.searching.engine.RankedPage;
+
+import java.util.List;
+import java.util.Map;
+
+// Ранжированный результат запроса: лучшие страницы, общее число найденных страниц и леммы сайтов для сниппетов
+@Getter
+public class SearchRanking {
+
+    private final List<RankedPage> pages;
+    private final int count;
+    private final Map<Long, List<String>> siteLemmas;
+    private final long createdAt = System.currentTimeMillis();
+
+    public SearchRanking(List<RankedPage> pages, int count, Map<Long, List<String>> siteLemmas) {
+        this.pages = pages;
+        this.count = count;
+        this.siteLemmas = siteLemmas;
+    }
+
+    // Хватает ли сохранённых страниц для вывода первых size результатов
+    public boolean covers(int size) {
+        return pages.size() >= size || pages.size() >= count;
+    }
+}
@@ -0,0 +1,47 @@
+package searchengine.services.searching.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+// Кодирование возрастающих последовательностей (позиции слов, леммы страницы):
+// разности соседних значений в формате varint (7 бит на байт)
+public final class PositionCodec {
+
+    private PositionCodec() {
+    }
+
+    public static byte[] encode(int[] positions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(positions.length + 4);
+        int previous = 0;
+        for (int position : positions) {
+            int delta = position - previous;
+            while ((delta & ~0x7F) != 0) {
+                out.write((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.write(delta);
+            previous = position;
+        }
+        return out.toByteArray();
+    }
+
+    public static int[] decode(byte[] encoded) {
+        int[] positions = new int[encoded.length];
+        int size = 0;
+        int previous = 0;
+        int i = 0;
+        while (i < encoded.length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[i++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += delta;
+            positions[size++] = previous;
+        }
+        return Arrays.copyOf(positions, size);
+    }
+}
@@ -0,0 +1,205 @@
+package searchengine.services.searching.engine;
+
+import java.util.Arrays;
+
+// Список вхождений леммы: идентификаторы страниц по возрастанию, ранги и позиции слов в параллельных массивах.
+// Массив позиций создаётся при добавлении первого вхождения с позициями
+public class PostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+    // Размер блока, для которого хранится наибольший ранг (для пропуска блоков при отборе лучших страниц)
+    public static final int BLOCK_SIZE = 64;
+
+    private int[] pageIds;
+    private float[] ranks;
+    private byte[][] positions;
+    private int size;
+    // Наибольшие ранги блоков, null - требуется пересчёт после изменения списка
+    private float[] blockMax;
+    private float maxRank;
+
+    public PostingList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PostingList(int capacity) {
+        pageIds = new int[Math.max(capacity, 1)];
+        ranks = new float[Math.max(capacity, 1)];
+    }
+
+    private PostingList(int[] pageIds, float[] ranks, byte[][] positions, int size, float[] blockMax, float maxRank) {
+        this.pageIds = pageIds;
+        this.ranks = ranks;
+        this.positions = positions;
+        this.size = size;
+        this.blockMax = blockMax;
+        this.maxRank = maxRank;
+    }
+
+    public void add(int pageId, float rank) {
+        add(pageId, rank, null);
+    }
+
+    public synchronized void add(int pageId, float rank, byte[] encodedPositions) {
+        blockMax = null;
+        if (positions == null && encodedPositions != null) {
+            positions = new byte[pageIds.length][];
+        }
+        if (size == 0 || pageIds[size - 1] < pageId) {
+            ensureCapacity(size + 1);
+            pageIds[size] = pageId;
+            ranks[size] = rank;
+            setPositions(size, encodedPositions);
+            size++;
+            return;
+        }
+
+        int index = Arrays.binarySearch(pageIds, 0, size, pageId);
+        if (index >= 0) {
+            ranks[index] = rank;
+            setPositions(index, encodedPositions);
+            return;
+        }
+
+        int insertion = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(pageIds, insertion, pageIds, insertion + 1, size - insertion);
+        System.arraycopy(ranks, insertion, ranks, insertion + 1, size - insertion);
+        if (positions != null) {
+            System.arraycopy(positions, insertion, positions, insertion + 1, size - insertion);
+        }
+        pageIds[insertion] = pageId;
+        ranks[insertion] = rank;
+        setPositions(insertion, encodedPositions);
+        size++;
+    }
+
+    public synchronized boolean remove(int pageId) {
+        int index = Arrays.binarySearch(pageIds, 0, size, pageId);
+        if (index < 0) {
+            return false;
+        }
+        blockMax = null;
+        System.arraycopy(pageIds, index + 1, pageIds, index, size - index - 1);
+        System.arraycopy(ranks, index + 1, ranks, index, size - index - 1);
+        if (positions != null) {
+            System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+            positions[size - 1] = null;
+        }
+        size--;
+        return true;
+    }
+
+    public synchronized PostingList snapshot() {
+        computeBlockMax();
+        return new PostingList(Arrays.copyOf(pageIds, size), Arrays.copyOf(ranks, size),
+                positions == null ? null : Arrays.copyOf(positions, size), size, blockMax, maxRank);
+    }
+
+    public synchronized void trim() {
+        if (pageIds.length > size) {
+            pageIds = Arrays.copyOf(pageIds, Math.max(size, 1));
+            ranks = Arrays.copyOf(ranks, Math.max(size, 1));
+            if (positions != null) {
+                positions = Arrays.copyOf(positions, Math.max(size, 1));
+            }
+        }
+        computeBlockMax();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPageId(int index) {
+        return pageIds[index];
+    }
+
+    public float getRank(int index) {
+        return ranks[index];
+    }
+
+    // null, если позиции не загружены или страница проиндексирована до их появления
+    public int[] getPositions(int index) {
+        byte[] encoded = positions == null ? null : positions[index];
+        return encoded == null ? null : PositionCodec.decode(encoded);
+    }
+
+    public int indexOf(int pageId) {
+        return Arrays.binarySearch(pageIds, 0, size, pageId);
+    }
+
+    // Первый индекс не меньше from, где идентификатор страницы не меньше pageId
+    public int advance(int from, int pageId) {
+        return advance(pageIds, size, from, pageId);
+    }
+
+    // Экспоненциальный поиск вперёд по возрастающему массиву: шаг удваивается, затем двоичный поиск в найденном отрезке
+    public static int advance(int[] pageIds, int size, int from, int pageId) {
+        if (from >= size || pageIds[from] >= pageId) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        while (low + step < size && pageIds[low + step] < pageId) {
+            low += step;
+            step <<= 1;
+        }
+        int index = Arrays.binarySearch(pageIds, low + 1, Math.min(low + step + 1, size), pageId);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public synchronized float getMaxRank() {
+        computeBlockMax();
+        return maxRank;
+    }
+
+    public int getBlockCount() {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    public synchronized float getBlockMax(int block) {
+        computeBlockMax();
+        return blockMax[block];
+    }
+
+    public int getBlockLastPageId(int block) {
+        return pageIds[Math.min((block + 1) * BLOCK_SIZE, size) - 1];
+    }
+
+    private void computeBlockMax() {
+        if (blockMax != null) {
+            return;
+        }
+        float[] maxima = new float[getBlockCount()];
+        float max = 0;
+        for (int i = 0; i < size; i++) {
+            int block = i / BLOCK_SIZE;
+            maxima[block] = Math.max(maxima[block], ranks[i]);
+            max = Math.max(max, ranks[i]);
+        }
+        maxRank = max;
+        blockMax = maxima;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > pageIds.length) {
+            int newCapacity = Math.max(capacity, pageIds.length + (pageIds.length >> 1));
+            pageIds = Arrays.copyOf(pageIds, newCapacity);
+            ranks = Arrays.copyOf(ranks, newCapacity);
+            if (positions != null) {
+                positions = Arrays.copyOf(positions, newCapacity);
+            }
+        }
+    }
+
+    private void setPositions(int index, byte[] encodedPositions) {
+        if (positions != null) {
+            positions[index] = encodedPositions;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package searchengine.services.searching.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Comparator;
+
+@Data
+@AllArgsConstructor
+public class RankedPage {
+
+    // Сначала более релевантные, при равенстве - по возрастанию идентификатора страницы
+    public static final Comparator<RankedPage> BY_RELEVANCE = Comparator
+            .comparing(RankedPage::getRelevance, Comparator.reverseOrder())
+            .thenComparing(RankedPage::getPageId);
+
+    private long pageId;
+    private long siteId;
+    private float relevance;
+}
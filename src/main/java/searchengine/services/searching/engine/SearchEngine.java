@@ -0,0 +1,23 @@
+package searchengine.services.searching.engine;
+
+import searchengine.dto.index.IndexData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface SearchEngine {
+
+    void load();
+
+    Map<Long, PostingList> getPostings(Collection<Long> lemmaIds);
+
+    // withPositions - нужны ли позиции слов (для поиска фраз)
+    Map<Long, PostingList> getPostings(Collection<Long> lemmaIds, boolean withPositions);
+
+    void addPage(Long pageId, List<IndexData> indices);
+
+    void removePage(Long pageId);
+
+    void clear();
+}
@@ -0,0 +1,60 @@
+package searchengine.services.searching.engine;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.dto.index.IndexData;
+import searchengine.dto.index.PostingData;
+import searchengine.repository.IndexRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchEngineInDataBase implements SearchEngine {
+
+    private final IndexRepository indexRepository;
+
+    @Override
+    public void load() {
+        log.info("Поиск выполняется по базе данных, загрузка индекса не требуется.");
+    }
+
+    @Override
+    public Map<Long, PostingList> getPostings(Collection<Long> lemmaIds) {
+        return getPostings(lemmaIds, false);
+    }
+
+    @Override
+    public Map<Long, PostingList> getPostings(Collection<Long> lemmaIds, boolean withPositions) {
+        Map<Long, PostingList> postings = new HashMap<>();
+        if (lemmaIds.isEmpty()) {
+            return postings;
+        }
+        // Позиции читаются только для запросов с фразами
+        List<PostingData> rows = withPositions
+                ? indexRepository.findPostingsWithPositionsByLemmaIds(lemmaIds)
+                : indexRepository.findPostingsByLemmaIds(lemmaIds);
+        for (PostingData posting : rows) {
+            postings.computeIfAbsent(posting.getLemmaId(), id -> new PostingList())
+                    .add(Math.toIntExact(posting.getPageId()), posting.getRank(), posting.getPositions());
+        }
+        return postings;
+    }
+
+    @Override
+    public void addPage(Long pageId, List<IndexData> indices) {
+    }
+
+    @Override
+    public void removePage(Long pageId) {
+    }
+
+    @Override
+    public void clear() {
+    }
+}
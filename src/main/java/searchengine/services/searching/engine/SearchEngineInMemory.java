@@ -0,0 +1,156 @@
+package searchengine.services.searching.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import searchengine.dto.index.IndexData;
+import searchengine.dto.index.PostingData;
+import searchengine.repository.IndexRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Инвертированный индекс в памяти процесса: лемма -> страницы с рангами.
+// Позиции слов нужны только фразам и в памяти не хранятся: запрос с фразами читает списки с позициями из базы
+@Slf4j
+@Component
+public class SearchEngineInMemory implements SearchEngine {
+
+    private final IndexRepository indexRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, PostingList> postings = new ConcurrentHashMap<>();
+    // Леммы каждой страницы индекса для удаления страницы без перебора всех списков:
+    // идентификаторы по возрастанию, сжатые в разности varint
+    private final Map<Integer, byte[]> pageLemmas = new ConcurrentHashMap<>();
+
+    public SearchEngineInMemory(IndexRepository indexRepository, PlatformTransactionManager transactionManager) {
+        this.indexRepository = indexRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void load() {
+        log.info("Загрузка инвертированного индекса в память.");
+        long start = System.currentTimeMillis();
+        clear();
+
+        AtomicLong count = new AtomicLong();
+        PageLemmasCollector collector = new PageLemmasCollector();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<PostingData> stream = indexRepository.streamAllPostings()) {
+                stream.forEach(posting -> {
+                    int lemmaId = Math.toIntExact(posting.getLemmaId());
+                    int pageId = Math.toIntExact(posting.getPageId());
+                    postings.computeIfAbsent(lemmaId, id -> new PostingList()).add(pageId, posting.getRank());
+                    collector.add(pageId, lemmaId);
+                    count.incrementAndGet();
+                });
+            }
+        });
+        collector.flush();
+
+        postings.values().forEach(PostingList::trim);
+        log.info("Индекс загружен: {} лемм, {} вхождений за {} мс.",
+                postings.size(), count.get(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Map<Long, PostingList> getPostings(Collection<Long> lemmaIds) {
+        return getPostings(lemmaIds, false);
+    }
+
+    @Override
+    public Map<Long, PostingList> getPostings(Collection<Long> lemmaIds, boolean withPositions) {
+        Map<Long, PostingList> result = new HashMap<>();
+        if (withPositions && !lemmaIds.isEmpty()) {
+            indexRepository.findPostingsWithPositionsByLemmaIds(lemmaIds).forEach(posting ->
+                    result.computeIfAbsent(posting.getLemmaId(), id -> new PostingList())
+                            .add(Math.toIntExact(posting.getPageId()), posting.getRank(), posting.getPositions()));
+            return result;
+        }
+        for (Long lemmaId : lemmaIds) {
+            PostingList list = postings.get(Math.toIntExact(lemmaId));
+            if (list != null) {
+                result.put(lemmaId, list.snapshot());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void addPage(Long pageId, List<IndexData> indices) {
+        int page = Math.toIntExact(pageId);
+        removePage(pageId);
+
+        int[] lemmas = new int[indices.size()];
+        int i = 0;
+        for (IndexData index : indices) {
+            int lemmaId = Math.toIntExact(index.getLemmaId());
+            postings.computeIfAbsent(lemmaId, id -> new PostingList()).add(page, index.getRank());
+            lemmas[i++] = lemmaId;
+        }
+        putPageLemmas(page, lemmas);
+    }
+
+    @Override
+    public void removePage(Long pageId) {
+        int page = Math.toIntExact(pageId);
+        byte[] lemmas = pageLemmas.remove(page);
+        if (lemmas == null) {
+            // Новая страница, которой ещё нет в индексе
+            return;
+        }
+        for (int lemmaId : PositionCodec.decode(lemmas)) {
+            PostingList list = postings.get(lemmaId);
+            if (list != null) {
+                list.remove(page);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        pageLemmas.clear();
+    }
+
+    private void putPageLemmas(int pageId, int[] lemmas) {
+        Arrays.sort(lemmas);
+        pageLemmas.put(pageId, PositionCodec.encode(lemmas));
+    }
+
+    // Вхождения загружаются по возрастанию страниц, поэтому леммы страницы собираются подряд в один буфер
+    private class PageLemmasCollector {
+
+        private int pageId = -1;
+        private int[] lemmas = new int[64];
+        private int size;
+
+        private void add(int pageId, int lemmaId) {
+            if (pageId != this.pageId) {
+                flush();
+                this.pageId = pageId;
+            }
+            if (size == lemmas.length) {
+                lemmas = Arrays.copyOf(lemmas, size * 2);
+            }
+            lemmas[size++] = lemmaId;
+        }
+
+        private void flush() {
+            if (size > 0) {
+                putPageLemmas(pageId, Arrays.copyOf(lemmas, size));
+            }
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package searchengine.services.searching.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Ограниченная куча: хранит только k лучших элементов, в вершине - худший из них
+public class TopKQueue<T> {
+
+    // k приходит из запроса, поэтому куча растёт по мере заполнения, а не выделяется сразу
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private final int k;
+    private final Comparator<T> comparator;
+    private final PriorityQueue<T> queue;
+
+    public TopKQueue(int k, Comparator<T> comparator) {
+        this.k = k;
+        this.comparator = comparator;
+        this.queue = new PriorityQueue<>(Math.min(Math.max(k, 1), MAX_INITIAL_CAPACITY), comparator.reversed());
+    }
+
+    public boolean offer(T element) {
+        if (k <= 0) {
+            return false;
+        }
+        if (queue.size() < k) {
+            queue.add(element);
+            return true;
+        }
+        if (comparator.compare(element, queue.peek()) < 0) {
+            queue.poll();
+            queue.add(element);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isFull() {
+        return queue.size() >= k;
+    }
+
+    public T peekWorst() {
+        return queue.peek();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public List<T> toSortedList() {
+        List<T> list = new ArrayList<>(queue);
+        list.sort(comparator);
+        return list;
+    }
+}
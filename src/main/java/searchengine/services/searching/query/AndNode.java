@@ -0,0 +1,17 @@
+package searchengine.services.searching.query;
+
+import java.util.List;
+import java.util.Set;
+
+public record AndNode(List<QueryNode> children) implements QueryNode {
+
+    @Override
+    public void collectLemmas(Set<String> lemmas) {
+        children.forEach(child -> child.collectLemmas(lemmas));
+    }
+
+    @Override
+    public boolean hasPhrases() {
+        return children.stream().anyMatch(QueryNode::hasPhrases);
+    }
+}
@@ -0,0 +1,214 @@
+package searchengine.services.searching.query;
+
+import searchengine.services.searching.engine.PostingList;
+import searchengine.services.searching.engine.RankedPage;
+import searchengine.services.searching.engine.TopKQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Отбор k лучших страниц для объединения слов без подсчёта ранга каждой страницы (MaxScore).
+// Списки упорядочены по наибольшему рангу: страницы, встречающиеся только в "несущественных" списках,
+// не могут превысить порог k-й страницы и не рассматриваются. Для несущественных списков граница
+// уточняется наибольшим рангом блока, поэтому блоки без шанса попасть в выдачу пропускаются целиком.
+// Результат совпадает с полным подсчётом через QueryEvaluator.
+public class MaxScoreEvaluator {
+
+    private final Map<String, PostingList> postings;
+    private final Set<String> ignored;
+
+    public MaxScoreEvaluator(Map<String, PostingList> postings, Set<String> ignored) {
+        this.postings = postings;
+        this.ignored = ignored;
+    }
+
+    // Подходит для одного слова и для объединения отдельных слов через OR
+    public static boolean supports(QueryNode node) {
+        return node instanceof TermNode
+                || node instanceof OrNode or && or.children().stream().allMatch(TermNode.class::isInstance);
+    }
+
+    // Лучшие k страниц и общее число найденных страниц, null - все слова отброшены как частые
+    public ScoredPages evaluate(QueryNode node, int k) {
+        List<QueryNode> terms = node instanceof OrNode or ? or.children() : List.of(node);
+        List<Cursor> cursors = new ArrayList<>();
+        boolean active = false;
+        for (QueryNode child : terms) {
+            String lemma = ((TermNode) child).lemma();
+            if (ignored.contains(lemma)) {
+                continue;
+            }
+            active = true;
+            PostingList list = postings.get(lemma);
+            if (list != null && !list.isEmpty()) {
+                cursors.add(new Cursor(list, cursors.size()));
+            }
+        }
+        if (!active) {
+            return null;
+        }
+
+        int total = countPages(cursors);
+        TopKQueue<RankedPage> topPages = new TopKQueue<>(Math.max(k, 1), RankedPage.BY_RELEVANCE);
+        if (!cursors.isEmpty()) {
+            collectTopPages(cursors, topPages);
+        }
+
+        List<RankedPage> pages = new ArrayList<>(topPages.toSortedList());
+        pages.sort(Comparator.comparingLong(RankedPage::getPageId));
+        int[] pageIds = new int[pages.size()];
+        float[] scores = new float[pages.size()];
+        for (int i = 0; i < pages.size(); i++) {
+            pageIds[i] = (int) pages.get(i).getPageId();
+            scores[i] = pages.get(i).getRelevance();
+        }
+        return new ScoredPages(pageIds, scores, pageIds.length, total);
+    }
+
+    private void collectTopPages(List<Cursor> cursorList, TopKQueue<RankedPage> topPages) {
+        // Ранг страницы суммируется в порядке слов запроса, как при полном подсчёте
+        float[] termRanks = new float[cursorList.size()];
+        boolean[] present = new boolean[cursorList.size()];
+
+        Cursor[] cursors = cursorList.toArray(new Cursor[0]);
+        Arrays.sort(cursors, Comparator.comparingDouble(cursor -> cursor.maxRank));
+        float[] prefixMax = new float[cursors.length];
+        float sum = 0;
+        for (int i = 0; i < cursors.length; i++) {
+            sum += cursors[i].maxRank;
+            prefixMax[i] = sum;
+        }
+
+        int firstEssential = 0;
+        while (true) {
+            float threshold = topPages.isFull() ? topPages.peekWorst().getRelevance() : Float.NEGATIVE_INFINITY;
+            while (firstEssential < cursors.length && prefixMax[firstEssential] < threshold) {
+                firstEssential++;
+            }
+            if (firstEssential == cursors.length) {
+                return;
+            }
+
+            int pageId = Integer.MAX_VALUE;
+            for (int i = firstEssential; i < cursors.length; i++) {
+                pageId = Math.min(pageId, cursors[i].pageId());
+            }
+            if (pageId == Integer.MAX_VALUE) {
+                return;
+            }
+
+            Arrays.fill(present, false);
+            float partial = 0;
+            for (int i = firstEssential; i < cursors.length; i++) {
+                if (cursors[i].pageId() == pageId) {
+                    partial += cursors[i].rank();
+                    termRanks[cursors[i].term] = cursors[i].rank();
+                    present[cursors[i].term] = true;
+                }
+            }
+
+            boolean candidate = true;
+            for (int i = firstEssential - 1; i >= 0 && candidate; i--) {
+                float rest = i > 0 ? prefixMax[i - 1] : 0;
+                if (partial + cursors[i].maxRank + rest < threshold
+                        || partial + cursors[i].blockMax(pageId) + rest < threshold) {
+                    candidate = false;
+                    break;
+                }
+                cursors[i].advance(pageId);
+                if (cursors[i].pageId() == pageId) {
+                    partial += cursors[i].rank();
+                    termRanks[cursors[i].term] = cursors[i].rank();
+                    present[cursors[i].term] = true;
+                }
+            }
+
+            if (candidate) {
+                float score = 0;
+                for (int term = 0; term < present.length; term++) {
+                    if (present[term]) {
+                        score += termRanks[term];
+                    }
+                }
+                topPages.offer(new RankedPage(pageId, 0, score));
+            }
+
+            for (int i = firstEssential; i < cursors.length; i++) {
+                if (cursors[i].pageId() == pageId) {
+                    cursors[i].next();
+                }
+            }
+        }
+    }
+
+    // Число страниц в объединении списков - только сравнение идентификаторов, без подсчёта рангов
+    private int countPages(List<Cursor> cursors) {
+        if (cursors.size() == 1) {
+            return cursors.get(0).list.size();
+        }
+        int[] indices = new int[cursors.size()];
+        int count = 0;
+        while (true) {
+            int pageId = Integer.MAX_VALUE;
+            for (int i = 0; i < indices.length; i++) {
+                PostingList list = cursors.get(i).list;
+                if (indices[i] < list.size()) {
+                    pageId = Math.min(pageId, list.getPageId(indices[i]));
+                }
+            }
+            if (pageId == Integer.MAX_VALUE) {
+                return count;
+            }
+            count++;
+            for (int i = 0; i < indices.length; i++) {
+                PostingList list = cursors.get(i).list;
+                if (indices[i] < list.size() && list.getPageId(indices[i]) == pageId) {
+                    indices[i]++;
+                }
+            }
+        }
+    }
+
+    private static class Cursor {
+
+        private final PostingList list;
+        private final int term;
+        private final float maxRank;
+        private int index;
+        private int block;
+
+        private Cursor(PostingList list, int term) {
+            this.list = list;
+            this.term = term;
+            this.maxRank = list.getMaxRank();
+        }
+
+        private int pageId() {
+            return index < list.size() ? list.getPageId(index) : Integer.MAX_VALUE;
+        }
+
+        private float rank() {
+            return list.getRank(index);
+        }
+
+        private void next() {
+            index++;
+        }
+
+        private void advance(int pageId) {
+            index = list.advance(index, pageId);
+        }
+
+        // Наибольший ранг блока, в котором может находиться страница, без перехода внутри блока
+        private float blockMax(int pageId) {
+            while (block < list.getBlockCount() && list.getBlockLastPageId(block) < pageId) {
+                block++;
+            }
+            return block < list.getBlockCount() ? list.getBlockMax(block) : 0;
+        }
+    }
+}
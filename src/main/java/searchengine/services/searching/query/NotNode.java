@@ -0,0 +1,17 @@
+package searchengine.services.searching.query;
+
+import java.util.Set;
+
+// Исключение: страницы, подходящие под child, убираются из результата соседних узлов AND
+public record NotNode(QueryNode child) implements QueryNode {
+
+    @Override
+    public void collectLemmas(Set<String> lemmas) {
+        child.collectLemmas(lemmas);
+    }
+
+    @Override
+    public boolean hasPhrases() {
+        return child.hasPhrases();
+    }
+}
@@ -0,0 +1,14 @@
+package searchengine.services.searching.query;
+
+// Страницы по возрастанию идентификатора с рангами: список вхождений леммы или результат узла запроса
+public interface PageSet {
+
+    int size();
+
+    int getPageId(int index);
+
+    float getScore(int index);
+
+    // Первый индекс не меньше from, где идентификатор страницы не меньше pageId
+    int advance(int from, int pageId);
+}
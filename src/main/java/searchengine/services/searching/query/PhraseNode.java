@@ -0,0 +1,23 @@
+package searchengine.services.searching.query;
+
+import java.util.List;
+import java.util.Set;
+
+// Фраза в кавычках: леммы и их позиции внутри фразы (служебные слова занимают позицию, но не участвуют в поиске).
+// exact - слова идут подряд в заданном порядке, иначе все слова должны уместиться в окно длины фразы плюс slop.
+public record PhraseNode(List<String> lemmas, List<Integer> offsets, boolean exact, int slop) implements QueryNode {
+
+    @Override
+    public void collectLemmas(Set<String> lemmas) {
+        lemmas.addAll(this.lemmas);
+    }
+
+    @Override
+    public boolean hasPhrases() {
+        return true;
+    }
+
+    public int getSpan() {
+        return offsets.get(offsets.size() - 1) - offsets.get(0);
+    }
+}
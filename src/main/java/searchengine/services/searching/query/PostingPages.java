@@ -0,0 +1,33 @@
+package searchengine.services.searching.query;
+
+import searchengine.services.searching.engine.PostingList;
+
+// Список вхождений леммы как набор страниц без копирования массивов
+class PostingPages implements PageSet {
+
+    private final PostingList postings;
+
+    PostingPages(PostingList postings) {
+        this.postings = postings;
+    }
+
+    @Override
+    public int size() {
+        return postings.size();
+    }
+
+    @Override
+    public int getPageId(int index) {
+        return postings.getPageId(index);
+    }
+
+    @Override
+    public float getScore(int index) {
+        return postings.getRank(index);
+    }
+
+    @Override
+    public int advance(int from, int pageId) {
+        return postings.advance(from, pageId);
+    }
+}
@@ -0,0 +1,229 @@
+package searchengine.services.searching.query;
+
+import searchengine.services.searching.engine.PostingList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Вычисление дерева запроса по спискам вхождений одного сайта.
+// Леммы из ignored отброшены как слишком частые: такой узел не сужает выдачу (результат null),
+// лемма, которой нет на сайте, даёт пустой результат.
+// Леммы из deferred тоже не сужают выдачу, но их ранг добавляется к уже найденным страницам.
+public class QueryEvaluator {
+
+    private final Map<String, PostingList> postings;
+    private final Set<String> ignored;
+    private final Set<String> deferred;
+
+    public QueryEvaluator(Map<String, PostingList> postings, Set<String> ignored) {
+        this(postings, ignored, Set.of());
+    }
+
+    public QueryEvaluator(Map<String, PostingList> postings, Set<String> ignored, Set<String> deferred) {
+        this.postings = postings;
+        this.ignored = ignored;
+        this.deferred = deferred;
+    }
+
+    public ScoredPages evaluate(QueryNode node) {
+        PageSet pages = evaluateNode(node);
+        if (pages == null) {
+            return null;
+        }
+        ScoredPages result = ScoredPages.of(pages);
+        for (String lemma : new TreeSet<>(deferred)) {
+            PostingList list = postings.get(lemma);
+            if (list != null) {
+                result = ScoredPages.addScores(result, new PostingPages(list));
+            }
+        }
+        return result;
+    }
+
+    private boolean isSkipped(String lemma) {
+        return ignored.contains(lemma) || deferred.contains(lemma);
+    }
+
+    private PageSet evaluateNode(QueryNode node) {
+        if (node instanceof TermNode term) {
+            return evaluateTerm(term);
+        } else if (node instanceof PhraseNode phrase) {
+            return evaluatePhrase(phrase);
+        } else if (node instanceof AndNode and) {
+            return evaluateAnd(and);
+        } else if (node instanceof OrNode or) {
+            return evaluateOr(or);
+        } else if (node instanceof NotNode) {
+            // Исключение без положительной части не ограничивает выдачу
+            return null;
+        }
+        throw new IllegalArgumentException("Неизвестный узел запроса: " + node);
+    }
+
+    private PageSet evaluateTerm(TermNode term) {
+        if (isSkipped(term.lemma())) {
+            return null;
+        }
+        PostingList list = postings.get(term.lemma());
+        return list == null ? ScoredPages.empty() : new PostingPages(list);
+    }
+
+    private PageSet evaluateOr(OrNode or) {
+        PageSet result = null;
+        for (QueryNode child : or.children()) {
+            PageSet pages = evaluateNode(child);
+            if (pages != null) {
+                result = result == null ? pages : ScoredPages.union(result, pages);
+            }
+        }
+        return result;
+    }
+
+    private PageSet evaluateAnd(AndNode and) {
+        List<PageSet> operands = new ArrayList<>();
+        List<PageSet> excluded = new ArrayList<>();
+        for (QueryNode child : and.children()) {
+            PageSet pages = child instanceof NotNode not ? evaluateNode(not.child()) : evaluateNode(child);
+            if (pages == null) {
+                continue;
+            }
+            if (pages.size() == 0 && !(child instanceof NotNode)) {
+                return ScoredPages.empty();
+            }
+            (child instanceof NotNode ? excluded : operands).add(pages);
+        }
+        if (operands.isEmpty()) {
+            return null;
+        }
+        PageSet result = operands.size() == 1 ? operands.get(0) : ScoredPages.intersect(operands);
+        return excluded.isEmpty() ? result : ScoredPages.exclude(result, excluded);
+    }
+
+    private ScoredPages evaluatePhrase(PhraseNode phrase) {
+        Map<String, PostingList> lists = new LinkedHashMap<>();
+        List<String> activeLemmas = new ArrayList<>();
+        List<Integer> activeOffsets = new ArrayList<>();
+        for (int i = 0; i < phrase.lemmas().size(); i++) {
+            String lemma = phrase.lemmas().get(i);
+            if (isSkipped(lemma)) {
+                continue;
+            }
+            PostingList list = postings.get(lemma);
+            if (list == null) {
+                return ScoredPages.empty();
+            }
+            lists.put(lemma, list);
+            activeLemmas.add(lemma);
+            activeOffsets.add(phrase.offsets().get(i));
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        PostingList[] distinct = lists.values().toArray(new PostingList[0]);
+        List<String> distinctLemmas = new ArrayList<>(lists.keySet());
+        int[] lemmaIndex = activeLemmas.stream().mapToInt(distinctLemmas::indexOf).toArray();
+        int[] offsets = activeOffsets.stream().mapToInt(Integer::intValue).toArray();
+
+        int driver = 0;
+        for (int i = 1; i < distinct.length; i++) {
+            if (distinct[i].size() < distinct[driver].size()) {
+                driver = i;
+            }
+        }
+
+        int[] pageIds = new int[distinct[driver].size()];
+        float[] scores = new float[pageIds.length];
+        int size = 0;
+        int[] indices = new int[distinct.length];
+        for (int i = 0; i < distinct[driver].size(); i++) {
+            int pageId = distinct[driver].getPageId(i);
+            if (!locate(distinct, pageId, indices)) {
+                if (indices[0] < 0) {
+                    break;
+                }
+                continue;
+            }
+            int[][] positions = new int[distinct.length][];
+            float score = 0;
+            for (int j = 0; j < distinct.length; j++) {
+                positions[j] = distinct[j].getPositions(indices[j]);
+                score += distinct[j].getRank(indices[j]);
+            }
+            if (matches(phrase, positions, lemmaIndex, offsets)) {
+                pageIds[size] = pageId;
+                scores[size++] = score;
+            }
+        }
+        return new ScoredPages(pageIds, scores, size);
+    }
+
+    // Переход всех списков к странице; indices[0] < 0, если один из списков закончился
+    private boolean locate(PostingList[] lists, int pageId, int[] indices) {
+        for (int j = 0; j < lists.length; j++) {
+            indices[j] = lists[j].advance(Math.max(indices[j], 0), pageId);
+            if (indices[j] == lists[j].size()) {
+                indices[0] = -1;
+                return false;
+            }
+            if (lists[j].getPageId(indices[j]) != pageId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(PhraseNode phrase, int[][] positions, int[] lemmaIndex, int[] offsets) {
+        for (int[] lemmaPositions : positions) {
+            if (lemmaPositions == null) {
+                // Страница проиндексирована без позиций, проверяется только наличие всех слов
+                return true;
+            }
+            if (lemmaPositions.length == 0) {
+                return false;
+            }
+        }
+        return phrase.exact()
+                ? matchesExact(positions, lemmaIndex, offsets)
+                : minWindow(positions) <= (long) phrase.getSpan() + phrase.slop();
+    }
+
+    private boolean matchesExact(int[][] positions, int[] lemmaIndex, int[] offsets) {
+        for (int start : positions[lemmaIndex[0]]) {
+            boolean found = true;
+            for (int k = 1; k < lemmaIndex.length && found; k++) {
+                found = Arrays.binarySearch(positions[lemmaIndex[k]], start + offsets[k] - offsets[0]) >= 0;
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Наименьшее расстояние между первым и последним словом окна, содержащего все леммы фразы
+    private int minWindow(int[][] positions) {
+        int[] pointers = new int[positions.length];
+        int best = Integer.MAX_VALUE;
+        while (true) {
+            int min = 0;
+            int maxValue = Integer.MIN_VALUE;
+            for (int j = 0; j < positions.length; j++) {
+                int value = positions[j][pointers[j]];
+                if (value < positions[min][pointers[min]]) {
+                    min = j;
+                }
+                maxValue = Math.max(maxValue, value);
+            }
+            best = Math.min(best, maxValue - positions[min][pointers[min]]);
+            if (++pointers[min] == positions[min].length) {
+                return best;
+            }
+        }
+    }
+}
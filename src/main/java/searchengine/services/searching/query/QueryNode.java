@@ -0,0 +1,11 @@
+package searchengine.services.searching.query;
+
+import java.util.Set;
+
+// Узел дерева поискового запроса, листья содержат нормальные формы слов
+public interface QueryNode {
+
+    void collectLemmas(Set<String> lemmas);
+
+    boolean hasPhrases();
+}
@@ -0,0 +1,280 @@
+package searchengine.services.searching.query;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.exception.SearchingException;
+import searchengine.services.lemma.LemmaSearcher;
+import searchengine.services.lemma.WordTokenizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Разбор запроса. Слова подряд объединяются через AND, также поддерживаются OR, NOT (или -слово) и скобки:
+//   запрос    := и (OR и)*
+//   и         := унарный ((AND)? унарный)*
+//   унарный   := NOT унарный | -унарный | первичный
+//   первичный := ( запрос ) | "фраза" | "фраза"~N | слово
+// Операторы пишутся заглавными буквами: AND/И, OR/ИЛИ, NOT/НЕ.
+// Исключение ограничивает только соседние слова через AND: запрос из одних исключений и исключение
+// как операнд OR отклоняются.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryParser {
+
+    private static final char QUOTE = '"';
+    private static final char SLOP = '~';
+    private static final char MINUS = '-';
+    private static final Set<String> AND = Set.of("AND", "И");
+    private static final Set<String> OR = Set.of("OR", "ИЛИ");
+    private static final Set<String> NOT = Set.of("NOT", "НЕ");
+
+    private final LemmaSearcher lemmaSearcher;
+
+    @Value("${searching-settings.max-slop}")
+    private int maxSlop;
+
+    // null, если в запросе нет ни одного значимого слова
+    public QueryNode parse(String query) {
+        QueryNode root = new Parser(tokenize(query)).parseAll();
+        if (root != null && isNegative(root)) {
+            throw queryError("Запрос не может состоять только из исключаемых слов.");
+        }
+        log.debug("Запрос '{}' разобран: {}", query, root);
+        return root;
+    }
+
+    private enum TokenType { WORD, PHRASE, AND, OR, NOT, OPEN, CLOSE }
+
+    private record Token(TokenType type, String text, int slop) {
+    }
+
+    private List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(new Token(c == '(' ? TokenType.OPEN : TokenType.CLOSE, null, 0));
+                i++;
+            } else if (c == MINUS && i + 1 < query.length() && !Character.isWhitespace(query.charAt(i + 1))) {
+                tokens.add(new Token(TokenType.NOT, null, 0));
+                i++;
+            } else if (c == QUOTE) {
+                i = readPhrase(query, i, tokens);
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end))
+                        && "()\"".indexOf(query.charAt(end)) < 0) {
+                    end++;
+                }
+                tokens.add(toWordToken(query.substring(i, end)));
+                i = end;
+            }
+        }
+        return tokens;
+    }
+
+    private int readPhrase(String query, int start, List<Token> tokens) {
+        int close = query.indexOf(QUOTE, start + 1);
+        int end = close < 0 ? query.length() : close;
+        String text = query.substring(start + 1, end);
+        int i = Math.min(end + 1, query.length());
+
+        int slop = -1;
+        if (i < query.length() && query.charAt(i) == SLOP) {
+            int digits = i + 1;
+            while (digits < query.length() && Character.isDigit(query.charAt(digits))) {
+                digits++;
+            }
+            slop = digits > i + 1 ? parseSlop(query.substring(i + 1, digits)) : 0;
+            i = digits;
+        }
+        tokens.add(new Token(TokenType.PHRASE, text, slop));
+        return i;
+    }
+
+    // Строка длиннее 18 цифр не помещается в long и заведомо больше max-slop
+    private int parseSlop(String digits) {
+        long slop = digits.length() > 18 ? Long.MAX_VALUE : Long.parseLong(digits);
+        if (slop > maxSlop) {
+            throw queryError("Расстояние между словами фразы не может быть больше " + maxSlop + ".");
+        }
+        return (int) slop;
+    }
+
+    private Token toWordToken(String text) {
+        if (AND.contains(text)) {
+            return new Token(TokenType.AND, text, 0);
+        } else if (OR.contains(text)) {
+            return new Token(TokenType.OR, text, 0);
+        } else if (NOT.contains(text)) {
+            return new Token(TokenType.NOT, text, 0);
+        }
+        return new Token(TokenType.WORD, text, 0);
+    }
+
+    private class Parser {
+
+        private final List<Token> tokens;
+        private int index;
+
+        private Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        // Лишняя закрывающая скобка не обрывает разбор: части запроса до и после неё объединяются через AND
+        private QueryNode parseAll() {
+            List<QueryNode> parts = new ArrayList<>();
+            while (index < tokens.size()) {
+                parts.add(parseQuery());
+                accept(TokenType.CLOSE);
+            }
+            return and(parts);
+        }
+
+        private QueryNode parseQuery() {
+            List<QueryNode> nodes = new ArrayList<>();
+            nodes.add(parseAnd());
+            while (accept(TokenType.OR)) {
+                nodes.add(parseAnd());
+            }
+            return or(nodes);
+        }
+
+        private QueryNode parseAnd() {
+            List<QueryNode> nodes = new ArrayList<>();
+            nodes.add(parseUnary());
+            while (index < tokens.size() && peek() != TokenType.OR && peek() != TokenType.CLOSE) {
+                accept(TokenType.AND);
+                nodes.add(parseUnary());
+            }
+            return and(nodes);
+        }
+
+        private QueryNode parseUnary() {
+            if (accept(TokenType.NOT)) {
+                QueryNode child = parseUnary();
+                return child == null ? null : new NotNode(child);
+            }
+            return parsePrimary();
+        }
+
+        private QueryNode parsePrimary() {
+            if (index >= tokens.size()) {
+                return null;
+            }
+            Token token = tokens.get(index++);
+            switch (token.type()) {
+                case OPEN:
+                    QueryNode node = parseQuery();
+                    accept(TokenType.CLOSE);
+                    return node;
+                case PHRASE:
+                    return phrase(token.text(), token.slop());
+                case WORD:
+                    return words(token.text());
+                default:
+                    // Оператор без операнда (например, "OR" в конце запроса) пропускается
+                    return null;
+            }
+        }
+
+        private TokenType peek() {
+            return tokens.get(index).type();
+        }
+
+        private boolean accept(TokenType type) {
+            if (index < tokens.size() && peek() == type) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Слово может распасться на несколько, например "санкт-петербург", все они обязательны
+    private QueryNode words(String text) {
+        List<QueryNode> terms = new ArrayList<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> {
+            String lemma = lemmaSearcher.getLemma(word);
+            if (lemma != null) {
+                terms.add(new TermNode(lemma));
+            }
+        });
+        return and(terms);
+    }
+
+    private QueryNode phrase(String text, int slop) {
+        List<String> lemmas = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> {
+            String lemma = lemmaSearcher.getLemma(word);
+            if (lemma != null) {
+                lemmas.add(lemma);
+                offsets.add(position);
+            }
+        });
+
+        if (lemmas.isEmpty()) {
+            return null;
+        }
+        if (lemmas.size() == 1 && slop < 0) {
+            // Фраза из одного слова - обычное слово
+            return new TermNode(lemmas.get(0));
+        }
+        return new PhraseNode(lemmas, offsets, slop < 0, Math.max(slop, 0));
+    }
+
+    // Вложенные AND раскрываются, чтобы исключения в скобках ограничивали слова внешнего AND
+    private QueryNode and(List<QueryNode> nodes) {
+        List<QueryNode> children = normalize(nodes.stream()
+                .flatMap(node -> node instanceof AndNode and ? and.children().stream() : Stream.of(node))
+                .toList());
+        if (children.isEmpty()) {
+            return null;
+        }
+        return children.size() == 1 ? children.get(0) : new AndNode(children);
+    }
+
+    private QueryNode or(List<QueryNode> nodes) {
+        List<QueryNode> children = normalize(nodes);
+        if (children.isEmpty()) {
+            return null;
+        }
+        if (children.size() > 1 && children.stream().anyMatch(this::isNegative)) {
+            throw queryError("Исключение (NOT или -слово) не может быть операндом OR.");
+        }
+        return children.size() == 1 ? children.get(0) : new OrNode(children);
+    }
+
+    // Порядок операндов AND и OR не влияет на результат: без повторов и отсортированные, они дают одинаковое дерево
+    private List<QueryNode> normalize(List<QueryNode> nodes) {
+        return nodes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted(Comparator.comparing(QueryNode::toString))
+                .toList();
+    }
+
+    // Узел только исключает страницы и сам ничего не находит
+    private boolean isNegative(QueryNode node) {
+        if (node instanceof AndNode and) {
+            return and.children().stream().allMatch(this::isNegative);
+        }
+        return node instanceof NotNode;
+    }
+
+    private SearchingException queryError(String errorMsg) {
+        log.error("Ошибка разбора запроса: {}", errorMsg);
+        return new SearchingException(errorMsg);
+    }
+}
@@ -0,0 +1,181 @@
+package searchengine.services.searching.query;
+
+import searchengine.services.searching.engine.PostingList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Результат вычисления узла запроса: страницы по возрастанию идентификатора и их суммарные ранги
+public class ScoredPages implements PageSet {
+
+    private static final ScoredPages EMPTY = new ScoredPages(new int[0], new float[0], 0);
+
+    private final int[] pageIds;
+    private final float[] scores;
+    private final int size;
+    // Число всех найденных страниц, если сохранены только лучшие из них
+    private final int total;
+
+    ScoredPages(int[] pageIds, float[] scores, int size) {
+        this(pageIds, scores, size, size);
+    }
+
+    ScoredPages(int[] pageIds, float[] scores, int size, int total) {
+        this.pageIds = pageIds;
+        this.scores = scores;
+        this.size = size;
+        this.total = total;
+    }
+
+    public static ScoredPages empty() {
+        return EMPTY;
+    }
+
+    public static ScoredPages of(PageSet pages) {
+        if (pages instanceof ScoredPages scoredPages) {
+            return scoredPages;
+        }
+        int[] pageIds = new int[pages.size()];
+        float[] scores = new float[pages.size()];
+        for (int i = 0; i < pages.size(); i++) {
+            pageIds[i] = pages.getPageId(i);
+            scores[i] = pages.getScore(i);
+        }
+        return new ScoredPages(pageIds, scores, pageIds.length);
+    }
+
+    public static ScoredPages of(PostingList postings) {
+        return of(new PostingPages(postings));
+    }
+
+    // Объединение с суммированием рангов страниц, найденных в обоих наборах
+    public static ScoredPages union(PageSet first, PageSet second) {
+        int[] ids = new int[first.size() + second.size()];
+        float[] sums = new float[ids.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < first.size() || j < second.size()) {
+            int left = i < first.size() ? first.getPageId(i) : Integer.MAX_VALUE;
+            int right = j < second.size() ? second.getPageId(j) : Integer.MAX_VALUE;
+            if (left < right) {
+                ids[n] = left;
+                sums[n++] = first.getScore(i++);
+            } else if (right < left) {
+                ids[n] = right;
+                sums[n++] = second.getScore(j++);
+            } else {
+                ids[n] = left;
+                sums[n++] = first.getScore(i++) + second.getScore(j++);
+            }
+        }
+        return new ScoredPages(ids, sums, n);
+    }
+
+    // Пересечение: перебираются страницы самого короткого набора, в остальных - переход вперёд с удвоением шага
+    public static ScoredPages intersect(List<PageSet> sets) {
+        PageSet[] operands = sets.toArray(new PageSet[0]);
+        Arrays.sort(operands, Comparator.comparingInt(PageSet::size));
+        PageSet driver = operands[0];
+
+        int[] ids = new int[driver.size()];
+        float[] sums = new float[driver.size()];
+        int[] indices = new int[operands.length];
+        int n = 0;
+        candidates:
+        for (int i = 0; i < driver.size(); i++) {
+            int pageId = driver.getPageId(i);
+            float sum = driver.getScore(i);
+            for (int j = 1; j < operands.length; j++) {
+                indices[j] = operands[j].advance(indices[j], pageId);
+                if (indices[j] == operands[j].size()) {
+                    break candidates;
+                }
+                if (operands[j].getPageId(indices[j]) != pageId) {
+                    continue candidates;
+                }
+                sum += operands[j].getScore(indices[j]);
+            }
+            ids[n] = pageId;
+            sums[n++] = sum;
+        }
+        return new ScoredPages(ids, sums, n);
+    }
+
+    // Те же страницы, к рангам которых добавлены ранги из extra
+    public static ScoredPages addScores(ScoredPages pages, PageSet extra) {
+        float[] sums = Arrays.copyOf(pages.scores, pages.size);
+        int index = 0;
+        for (int i = 0; i < pages.size && index < extra.size(); i++) {
+            index = extra.advance(index, pages.pageIds[i]);
+            if (index < extra.size() && extra.getPageId(index) == pages.pageIds[i]) {
+                sums[i] += extra.getScore(index);
+            }
+        }
+        return new ScoredPages(pages.pageIds, sums, pages.size, pages.total);
+    }
+
+    // Страницы pages, которых нет ни в одном из исключаемых наборов
+    public static ScoredPages exclude(PageSet pages, List<PageSet> excluded) {
+        int[] ids = new int[pages.size()];
+        float[] sums = new float[pages.size()];
+        int[] indices = new int[excluded.size()];
+        int n = 0;
+        candidates:
+        for (int i = 0; i < pages.size(); i++) {
+            int pageId = pages.getPageId(i);
+            for (int j = 0; j < excluded.size(); j++) {
+                PageSet set = excluded.get(j);
+                indices[j] = set.advance(indices[j], pageId);
+                if (indices[j] < set.size() && set.getPageId(indices[j]) == pageId) {
+                    continue candidates;
+                }
+            }
+            ids[n] = pageId;
+            sums[n++] = pages.getScore(i);
+        }
+        return new ScoredPages(ids, sums, n);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int getPageId(int index) {
+        return pageIds[index];
+    }
+
+    @Override
+    public float getScore(int index) {
+        return scores[index];
+    }
+
+    @Override
+    public int advance(int from, int pageId) {
+        return PostingList.advance(pageIds, size, from, pageId);
+    }
+
+    public float getMaxScore() {
+        float max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, scores[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "ScoredPages" + Arrays.toString(Arrays.copyOf(pageIds, size));
+    }
+}
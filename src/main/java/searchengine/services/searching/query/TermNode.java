@@ -0,0 +1,16 @@
+package searchengine.services.searching.query;
+
+import java.util.Set;
+
+public record TermNode(String lemma) implements QueryNode {
+
+    @Override
+    public void collectLemmas(Set<String> lemmas) {
+        lemmas.add(lemma);
+    }
+
+    @Override
+    public boolean hasPhrases() {
+        return false;
+    }
+}
@@ -8,4 +8,6 @@ public interface SnippetService {
 
     List<String> getSnippets(String text, List<String> lemmas);
 
+    List<String> getSnippets(String text, int[] offsets);
+
 }
@@ -1,16 +1,14 @@
 package searchengine.services.snippet;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import searchengine.config.context.LemmaContext;
 import searchengine.services.lemma.LemmaSearcher;
+import searchengine.services.lemma.WordTokenizer;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -19,7 +17,8 @@ import java.util.stream.IntStream;
 @RequiredArgsConstructor
 public class SnippetServiceImpl implements SnippetService {
 
-    private final LemmaSearcher lemmaSearcher = LemmaContext.getLemmaSearcher();
+    private final LemmaSearcher lemmaSearcher;
+    private final MeterRegistry meterRegistry;
 
     @Value("${searching-settings.length-snippet}")
     private int lengthSnippet;
@@ -34,38 +33,35 @@ public class SnippetServiceImpl implements SnippetService {
                 .collect(Collectors.toList());
     }
 
+    // Страницы, проиндексированные без смещений слов, лемматизируются заново
     @Override
     public List<String> getSnippets(String text, List<String> lemmas) {
-        log.debug("Поиск сниппетов для лемм {} в тексте длиной {} символов", lemmas, text.length());
-
-        Map<String, List<Integer>> wordsWithIndices = getWordsWithIndices(text);
-        List<Integer> indices = wordsWithIndices.entrySet().parallelStream()
-                .filter(entry -> lemmas.contains(lemmaSearcher.getNormalForms(entry.getKey())))
-                .flatMap(entry -> entry.getValue().parallelStream())
-                .sorted()
-                .collect(Collectors.toList());
-
-        log.debug("Найдено {} индексов для лемм", indices.size());
-        return getSnippetsByIndices(text, indices);
+        return meterRegistry.timer("search.snippets", "source", "lemmas").record(() -> findSnippets(text, lemmas));
     }
 
-    private Map<String, List<Integer>> getWordsWithIndices(String text) {
-        log.debug("Индексация слов в тексте длиной {} символов", text.length());
-
-        Map<String, List<Integer>> wordsWithIndices = new ConcurrentHashMap<>();
-        String normalizedText = text.toLowerCase(Locale.ROOT);
+    // Смещения слов запроса сохранены при индексации: сниппеты вырезаются из текста без лемматизации
+    @Override
+    public List<String> getSnippets(String text, int[] offsets) {
+        return meterRegistry.timer("search.snippets", "source", "offsets").record(() -> getSnippetsByIndices(text,
+                Arrays.stream(offsets)
+                        .filter(offset -> offset < text.length())
+                        .boxed()
+                        .collect(Collectors.toList())));
+    }
 
-        Pattern pattern = Pattern.compile("[а-яa-z]+");
-        Matcher matcher = pattern.matcher(normalizedText);
+    private List<String> findSnippets(String text, List<String> lemmas) {
+        log.debug("Поиск сниппетов для лемм {} в тексте длиной {} символов", lemmas, text.length());
 
-        while (matcher.find()) {
-            String word = matcher.group();
-            int start = matcher.start();
-            wordsWithIndices.computeIfAbsent(word, list -> Collections.synchronizedList(new ArrayList<>())).add(start);
-        }
+        Set<String> lemmaSet = new HashSet<>(lemmas);
+        List<Integer> indices = new ArrayList<>();
+        WordTokenizer.tokenize(text, (word, start, end, position) -> {
+            if (lemmaSet.contains(lemmaSearcher.getNormalForms(word))) {
+                indices.add(start);
+            }
+        });
 
-        log.debug("Индексация завершена: найдено {} уникальных слов", wordsWithIndices.size());
-        return wordsWithIndices;
+        log.debug("Найдено {} индексов для лемм", indices.size());
+        return getSnippetsByIndices(text, indices);
     }
 
     private List<String> getSnippetsByIndices(String text, List<Integer> indices) {
@@ -2,18 +2,24 @@ package searchengine.services.statistics;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import searchengine.dto.statistics.DetailedStatisticsItem;
+import searchengine.dto.statistics.SiteCount;
 import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.statistics.TotalStatistics;
 import searchengine.entity.SiteEntity;
 import searchengine.entity.StatusSite;
+import searchengine.repository.LemmaRepository;
+import searchengine.repository.PageRepository;
 import searchengine.services.site.SiteService;
 
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -21,12 +27,21 @@ import java.util.List;
 public class StatisticsServiceImpl implements StatisticsService {
 
     private final SiteService siteService;
+    private final PageRepository pageRepository;
+    private final LemmaRepository lemmaRepository;
+
+    @Value("${statistics-settings.refresh-interval}")
+    private long refreshInterval;
+
+    // Число страниц и лемм по сайтам, считается агрегирующими запросами без загрузки сущностей
+    private volatile Counts counts;
 
     @Override
     public StatisticsResponse getStatistics() {
         log.debug("Начало сбора статистики по всем сайтам.");
 
         List<SiteEntity> sites = siteService.getAll();
+        Counts counts = getCounts();
 
         TotalStatistics total = new TotalStatistics();
         total.setSites(sites.size());
@@ -35,8 +50,8 @@ public class StatisticsServiceImpl implements StatisticsService {
         List<DetailedStatisticsItem> detailed = new ArrayList<>();
 
         sites.forEach(site -> {
-            int pages = site.getPages().size();
-            int lemmas = site.getLemmas().size();
+            int pages = counts.pages().getOrDefault(site.getId(), 0L).intValue();
+            int lemmas = counts.lemmas().getOrDefault(site.getId(), 0L).intValue();
             long statsTime = site.getStatusTime()
                     .atZone(ZoneId.systemDefault())
                     .toInstant()
@@ -73,4 +88,24 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .result(true)
                 .build();
     }
+
+    private Counts getCounts() {
+        Counts current = counts;
+        if (current == null || System.currentTimeMillis() - current.loadedAt() > refreshInterval * 1000) {
+            current = new Counts(System.currentTimeMillis(),
+                    toMap(pageRepository.countPagesBySite()),
+                    toMap(lemmaRepository.countLemmasBySite()));
+            counts = current;
+            log.debug("Счётчики страниц и лемм обновлены.");
+        }
+        return current;
+    }
+
+    private Map<Long, Long> toMap(List<SiteCount> siteCounts) {
+        return siteCounts.stream()
+                .collect(Collectors.toMap(SiteCount::getSiteId, SiteCount::getCount));
+    }
+
+    private record Counts(long loadedAt, Map<Long, Long> pages, Map<Long, Long> lemmas) {
+    }
 }